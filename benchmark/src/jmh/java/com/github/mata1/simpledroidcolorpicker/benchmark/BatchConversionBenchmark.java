@@ -0,0 +1,108 @@
+package com.github.mata1.simpledroidcolorpicker.benchmark;
+
+import com.github.mata1.simpledroidcolorpicker.utils.ColorBatchUtils;
+import com.github.mata1.simpledroidcolorpicker.utils.ColorUtils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Palette sized bulk conversions: one color at a time vs batch vs parallel batch
+ */
+@State(Scope.Thread)
+public class BatchConversionBenchmark {
+
+    @Param({ "1024", "1048576" })
+    public int size;
+
+    private int[] mColors, mOut;
+    private float[] mHue, mSat, mVal;
+    private IntBuffer mColorBuffer;
+    private FloatBuffer mHueBuffer, mSatBuffer, mValBuffer;
+    private float[] mHSV;
+
+    private ExecutorService mExecutor;
+    private int mThreads;
+
+    @Setup
+    public void setup() {
+        Random r = new Random(42);
+        mColors = new int[size];
+        for (int i = 0; i < size; i++)
+            mColors[i] = 0xFF000000 | r.nextInt(0x1000000);
+        mOut = new int[size];
+        mHue = new float[size];
+        mSat = new float[size];
+        mVal = new float[size];
+        mHSV = new float[3];
+
+        mColorBuffer = IntBuffer.wrap(mColors);
+        mHueBuffer = FloatBuffer.allocate(size);
+        mSatBuffer = FloatBuffer.allocate(size);
+        mValBuffer = FloatBuffer.allocate(size);
+
+        mThreads = Runtime.getRuntime().availableProcessors();
+        mExecutor = Executors.newFixedThreadPool(mThreads);
+        ColorBatchUtils.colorsToHSV(mColors, 0, mHue, mSat, mVal, 0, size);
+    }
+
+    @TearDown
+    public void tearDown() {
+        mExecutor.shutdown();
+    }
+
+    @Benchmark
+    public float[] toHSVOneByOne() {
+        for (int i = 0; i < size; i++) {
+            ColorUtils.colorToHSV(mColors[i], mHSV);
+            mHue[i] = mHSV[0];
+            mSat[i] = mHSV[1];
+            mVal[i] = mHSV[2];
+        }
+        return mHue;
+    }
+
+    @Benchmark
+    public float[] toHSVBatch() {
+        ColorBatchUtils.colorsToHSV(mColors, 0, mHue, mSat, mVal, 0, size);
+        return mHue;
+    }
+
+    @Benchmark
+    public FloatBuffer toHSVBuffers() {
+        mColorBuffer.clear();
+        mHueBuffer.clear();
+        mSatBuffer.clear();
+        mValBuffer.clear();
+        ColorBatchUtils.colorsToHSV(mColorBuffer, mHueBuffer, mSatBuffer, mValBuffer);
+        return mHueBuffer;
+    }
+
+    @Benchmark
+    public float[] toHSVParallel() throws InterruptedException {
+        ColorBatchUtils.colorsToHSV(mExecutor, mColors, 0, mHue, mSat, mVal, 0, size, mThreads);
+        return mHue;
+    }
+
+    @Benchmark
+    public int[] toColorsBatch() {
+        ColorBatchUtils.HSVToColors(mHue, mSat, mVal, 0, mOut, 0, size);
+        return mOut;
+    }
+
+    @Benchmark
+    public int[] toColorsParallel() throws InterruptedException {
+        ColorBatchUtils.HSVToColors(mExecutor, mHue, mSat, mVal, 0, mOut, 0, size, mThreads);
+        return mOut;
+    }
+}
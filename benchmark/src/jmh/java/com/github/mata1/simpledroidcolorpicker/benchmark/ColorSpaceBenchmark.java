@@ -0,0 +1,91 @@
+package com.github.mata1.simpledroidcolorpicker.benchmark;
+
+import com.github.mata1.simpledroidcolorpicker.utils.ColorSpaceUtils;
+import com.github.mata1.simpledroidcolorpicker.utils.ColorUtils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+
+/**
+ * OKLab/OKLCH and CIELAB conversion and perceptual hue mapping benchmarks
+ */
+@State(Scope.Thread)
+public class ColorSpaceBenchmark {
+
+    private static final int SIZE = 1024; // power of two, used as index mask
+
+    private int[] mColors;
+    private float[] mL, mA, mB, mHues;
+    private float[] mOut;
+    private int mIndex;
+
+    @Setup
+    public void setup() {
+        Random r = new Random(42);
+        mColors = new int[SIZE];
+        mL = new float[SIZE];
+        mA = new float[SIZE];
+        mB = new float[SIZE];
+        mHues = new float[SIZE];
+        float[] lab = new float[3];
+        for (int i = 0; i < SIZE; i++) {
+            mColors[i] = 0xFF000000 | r.nextInt(0x1000000);
+            ColorSpaceUtils.colorToOkLab(mColors[i], lab);
+            mL[i] = lab[0];
+            mA[i] = lab[1];
+            mB[i] = lab[2];
+            mHues[i] = r.nextFloat() * 360;
+        }
+        mOut = new float[3];
+    }
+
+    private int next() {
+        return mIndex = (mIndex + 1) & (SIZE - 1);
+    }
+
+    @Benchmark
+    public void colorToHSVBaseline(Blackhole bh) {
+        ColorUtils.colorToHSV(mColors[next()], mOut);
+        bh.consume(mOut);
+    }
+
+    @Benchmark
+    public void colorToOkLab(Blackhole bh) {
+        ColorSpaceUtils.colorToOkLab(mColors[next()], mOut);
+        bh.consume(mOut);
+    }
+
+    @Benchmark
+    public int okLabToColor() {
+        int i = next();
+        return ColorSpaceUtils.okLabToColor(mL[i], mA[i], mB[i]);
+    }
+
+    @Benchmark
+    public void colorToOkLch(Blackhole bh) {
+        ColorSpaceUtils.colorToOkLch(mColors[next()], mOut);
+        bh.consume(mOut);
+    }
+
+    @Benchmark
+    public void colorToLab(Blackhole bh) {
+        ColorSpaceUtils.colorToLab(mColors[next()], mOut);
+        bh.consume(mOut);
+    }
+
+    @Benchmark
+    public int labRoundTrip() {
+        ColorSpaceUtils.colorToLab(mColors[next()], mOut);
+        return ColorSpaceUtils.labToColor(mOut[0], mOut[1], mOut[2]);
+    }
+
+    @Benchmark
+    public float perceptualHue() {
+        return ColorSpaceUtils.perceptualHueToHSVHue(mHues[next()]);
+    }
+}
@@ -0,0 +1,128 @@
+package com.github.mata1.simpledroidcolorpicker.benchmark;
+
+import com.github.mata1.simpledroidcolorpicker.utils.ColorLongUtils;
+import com.github.mata1.simpledroidcolorpicker.utils.ColorUtils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+
+/**
+ * HSV <-> RGB conversion and hue ring generation benchmarks
+ */
+@State(Scope.Thread)
+public class ColorUtilsBenchmark {
+
+    private static final int SIZE = 1024; // power of two, used as index mask
+
+    @Param({ "7", "64" })
+    public int ringColors;
+
+    private int[] mColors;
+    private float[] mHues, mSats, mVals;
+    private float[] mHSV;
+    private int[] mRing;
+    private int mIndex;
+
+    @Setup
+    public void setup() {
+        Random r = new Random(42);
+        mColors = new int[SIZE];
+        mHues = new float[SIZE];
+        mSats = new float[SIZE];
+        mVals = new float[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            mColors[i] = 0xFF000000 | r.nextInt(0x1000000);
+            mHues[i] = r.nextFloat() * 360;
+            mSats[i] = r.nextFloat();
+            mVals[i] = r.nextFloat();
+        }
+        mHSV = new float[3];
+        mRing = new int[ringColors];
+    }
+
+    private int next() {
+        return mIndex = (mIndex + 1) & (SIZE - 1);
+    }
+
+    @Benchmark
+    public int colorFromHSV() {
+        int i = next();
+        return ColorUtils.getColorFromHSV(mHues[i], mSats[i], mVals[i]);
+    }
+
+    @Benchmark
+    public int colorFromHSVExact() {
+        int i = next();
+        return ColorUtils.HSVToColorExact(mHues[i], mSats[i], mVals[i]);
+    }
+
+    @Benchmark
+    public int colorFromHSVLookup() {
+        int i = next();
+        return ColorUtils.HSVToColorLookup(mHues[i], mSats[i], mVals[i]);
+    }
+
+    @Benchmark
+    public void colorToHSV(Blackhole bh) {
+        ColorUtils.colorToHSV(mColors[next()], mHSV);
+        bh.consume(mHSV);
+    }
+
+    @Benchmark
+    public void hsvComponentGetters(Blackhole bh) {
+        int color = mColors[next()];
+        bh.consume(ColorUtils.getHueFromColor(color));
+        bh.consume(ColorUtils.getSaturationFromColor(color));
+        bh.consume(ColorUtils.getValueFromColor(color));
+    }
+
+    @Benchmark
+    public float[] hsvFromColorAllocating() {
+        return ColorUtils.getHSVFromColor(mColors[next()]);
+    }
+
+    @Benchmark
+    public int roundTrip() {
+        ColorUtils.colorToHSV(mColors[next()], mHSV);
+        return ColorUtils.HSVToColor(mHSV[0], mHSV[1], mHSV[2]);
+    }
+
+    @Benchmark
+    public long colorLongFromHSV() {
+        int i = next();
+        return ColorLongUtils.HSVToColorLong(mHues[i], mSats[i], mVals[i], 1, ColorLongUtils.EXTENDED_SRGB);
+    }
+
+    @Benchmark
+    public long colorLongFromHSVDisplayP3() {
+        int i = next();
+        return ColorLongUtils.HSVToColorLong(mHues[i], mSats[i], mVals[i], 1, ColorLongUtils.DISPLAY_P3);
+    }
+
+    @Benchmark
+    public void colorLongRoundTrip(Blackhole bh) {
+        int i = next();
+        long color = ColorLongUtils.HSVToColorLong(mHues[i], mSats[i], mVals[i], 1, ColorLongUtils.EXTENDED_SRGB);
+        ColorLongUtils.colorLongToHSV(color, mHSV);
+        bh.consume(mHSV);
+    }
+
+    @Benchmark
+    public int[] hueRingColors() {
+        int i = next();
+        return ColorUtils.getHueRingColors(ringColors, mSats[i], mVals[i]);
+    }
+
+    @Benchmark
+    public int[] hueRingColorsInto() {
+        int i = next();
+        ColorUtils.getHueRingColors(mRing, mSats[i], mVals[i]);
+        return mRing;
+    }
+}
@@ -0,0 +1,127 @@
+package com.github.mata1.simpledroidcolorpicker.benchmark;
+
+import com.github.mata1.simpledroidcolorpicker.utils.ImageSampler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Eyedropper sampling on a 50 megapixel image: dragging within the cached window, jumping across the image,
+ * and whole-image kernels split into tiles on one or all cores
+ */
+@State(Scope.Thread)
+public class EyedropperBenchmark {
+
+    private static final int SIZE = 1024; // power of two, used as index mask
+    private static final int WIDTH = 8660, HEIGHT = 5774; // 50 MP
+
+    @Param({"1", "4"})
+    public int threads;
+
+    private ExecutorService mExecutor;
+    private ImageSampler mSampler;
+    private int[] mNearX, mNearY, mFarX, mFarY;
+    private int mIndex;
+
+    /**
+     * Image repeating a texture, read with array copies like a region decoder without the decoding
+     */
+    private static class TextureSource implements ImageSampler.PixelSource {
+        private static final int TEXTURE_SIZE = 1024;
+        private final int[] mTexture = new int[TEXTURE_SIZE * TEXTURE_SIZE];
+
+        TextureSource() {
+            Random r = new Random(42);
+            for (int i = 0; i < mTexture.length; i++)
+                mTexture[i] = 0xFF000000 | r.nextInt(0x1000000);
+        }
+
+        @Override
+        public int getWidth() {
+            return WIDTH;
+        }
+
+        @Override
+        public int getHeight() {
+            return HEIGHT;
+        }
+
+        @Override
+        public void getPixels(int[] pixels, int x, int y, int width, int height) {
+            for (int row = 0; row < height; row++) {
+                int ty = (y + row) % TEXTURE_SIZE;
+                int col = 0;
+                while (col < width) {
+                    int tx = (x + col) % TEXTURE_SIZE;
+                    int n = Math.min(width - col, TEXTURE_SIZE - tx);
+                    System.arraycopy(mTexture, ty * TEXTURE_SIZE + tx, pixels, row * width + col, n);
+                    col += n;
+                }
+            }
+        }
+    }
+
+    @Setup
+    public void setup() {
+        mExecutor = Executors.newFixedThreadPool(threads);
+        mSampler = new ImageSampler(new TextureSource(), mExecutor);
+
+        // drag path of small steps, and points spread over the whole image
+        Random r = new Random(42);
+        mNearX = new int[SIZE];
+        mNearY = new int[SIZE];
+        mFarX = new int[SIZE];
+        mFarY = new int[SIZE];
+        int x = WIDTH / 2, y = HEIGHT / 2;
+        for (int i = 0; i < SIZE; i++) {
+            x += r.nextInt(9) - 4;
+            y += r.nextInt(9) - 4;
+            mNearX[i] = x;
+            mNearY[i] = y;
+            mFarX[i] = r.nextInt(WIDTH);
+            mFarY[i] = r.nextInt(HEIGHT);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        mSampler.close();
+        mExecutor.shutdown();
+    }
+
+    @Benchmark
+    public int dragAverage() throws InterruptedException {
+        int i = mIndex++ & (SIZE - 1);
+        return mSampler.sampleNow(mNearX[i], mNearY[i], 4, ImageSampler.Mode.AVERAGE);
+    }
+
+    @Benchmark
+    public int dragMedian() throws InterruptedException {
+        int i = mIndex++ & (SIZE - 1);
+        return mSampler.sampleNow(mNearX[i], mNearY[i], 4, ImageSampler.Mode.MEDIAN);
+    }
+
+    @Benchmark
+    public int jumpAverage() throws InterruptedException {
+        int i = mIndex++ & (SIZE - 1);
+        return mSampler.sampleNow(mFarX[i], mFarY[i], 4, ImageSampler.Mode.AVERAGE);
+    }
+
+    @Benchmark
+    public int wholeImageAverage() throws InterruptedException {
+        return mSampler.sampleNow(WIDTH / 2, HEIGHT / 2, WIDTH, ImageSampler.Mode.AVERAGE);
+    }
+
+    @Benchmark
+    public int wholeImageMedian() throws InterruptedException {
+        return mSampler.sampleNow(WIDTH / 2, HEIGHT / 2, WIDTH, ImageSampler.Mode.MEDIAN);
+    }
+}
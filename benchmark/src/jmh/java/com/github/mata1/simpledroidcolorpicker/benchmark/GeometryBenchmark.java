@@ -0,0 +1,99 @@
+package com.github.mata1.simpledroidcolorpicker.benchmark;
+
+import com.github.mata1.simpledroidcolorpicker.utils.PolarMath;
+import com.github.mata1.simpledroidcolorpicker.utils.Utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * Benchmarks for the geometry helpers used by touch handling, Utils vs PolarMath
+ */
+@State(Scope.Thread)
+public class GeometryBenchmark {
+
+    private static final int SIZE = 1024; // power of two, used as index mask
+
+    private float[] mX, mY, mAngles;
+    private int mIndex;
+
+    @Setup
+    public void setup() {
+        Random r = new Random(42);
+        mX = new float[SIZE];
+        mY = new float[SIZE];
+        mAngles = new float[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            mX[i] = r.nextFloat() * 1000 - 500;
+            mY[i] = r.nextFloat() * 1000 - 500;
+            mAngles[i] = r.nextFloat() * 720 - 180;
+        }
+    }
+
+    private int next() {
+        return mIndex = (mIndex + 1) & (SIZE - 1);
+    }
+
+    @Benchmark
+    public double angle() {
+        int i = next();
+        return Utils.getAngle(0, 0, mX[i], mY[i]);
+    }
+
+    @Benchmark
+    public float angleDeg() {
+        int i = next();
+        return Utils.getAngleDeg(0, 0, mX[i], mY[i]);
+    }
+
+    @Benchmark
+    public float normalizeAngle() {
+        return Utils.normalizeAngle(mAngles[next()]);
+    }
+
+    @Benchmark
+    public float distance() {
+        int i = next();
+        return Utils.getDistance(0, 0, mX[i], mY[i]);
+    }
+
+    @Benchmark
+    public float normalizedAngleDeg() {
+        int i = next();
+        return Utils.normalizeAngle(Utils.getAngleDeg(0, 0, mX[i], mY[i]));
+    }
+
+    @Benchmark
+    public float polarAngleDeg() {
+        int i = next();
+        return PolarMath.atan2Deg(mY[i], mX[i]);
+    }
+
+    @Benchmark
+    public boolean distanceHitTest() {
+        int i = next();
+        return Utils.getDistance(0, 0, mX[i], mY[i]) < 400;
+    }
+
+    @Benchmark
+    public boolean polarHitTest() {
+        int i = next();
+        return PolarMath.isWithin(PolarMath.distanceSquared(mX[i], mY[i]), 400);
+    }
+
+    @Benchmark
+    public float cosSin() {
+        double rad = Math.toRadians(mAngles[next()]);
+        return (float)Math.cos(rad) + (float)Math.sin(rad);
+    }
+
+    @Benchmark
+    public float polarCosSin() {
+        float deg = mAngles[next()];
+        return PolarMath.cosDeg(deg) + PolarMath.sinDeg(deg);
+    }
+}
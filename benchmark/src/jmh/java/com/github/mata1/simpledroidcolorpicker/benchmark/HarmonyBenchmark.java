@@ -0,0 +1,59 @@
+package com.github.mata1.simpledroidcolorpicker.benchmark;
+
+import com.github.mata1.simpledroidcolorpicker.utils.ColorHarmony;
+import com.github.mata1.simpledroidcolorpicker.utils.ColorUtils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * Tetradic harmony of a color per colorChanged callback: allocating HSV arrays vs generating into a buffer,
+ * in HSV and OKLCH
+ */
+@State(Scope.Thread)
+public class HarmonyBenchmark {
+
+    private static final int SIZE = 1024; // power of two, used as index mask
+
+    private int[] mColors;
+    private int[] mHarmony;
+    private int mIndex;
+
+    @Setup
+    public void setup() {
+        Random r = new Random(42);
+        mColors = new int[SIZE];
+        for (int i = 0; i < SIZE; i++)
+            mColors[i] = 0xFF000000 | r.nextInt(0x1000000);
+        mHarmony = new int[ColorHarmony.MAX_SIZE];
+    }
+
+    @Benchmark
+    public int[] allocating() {
+        float[] hsv = ColorUtils.getHSVFromColor(mColors[mIndex++ & (SIZE - 1)]);
+        int[] harmony = new int[4];
+        harmony[0] = ColorUtils.getColorFromHSV(hsv[0], hsv[1], hsv[2]);
+        harmony[1] = ColorUtils.getColorFromHSV((hsv[0] + 60) % 360, hsv[1], hsv[2]);
+        harmony[2] = ColorUtils.getColorFromHSV((hsv[0] + 180) % 360, hsv[1], hsv[2]);
+        harmony[3] = ColorUtils.getColorFromHSV((hsv[0] + 240) % 360, hsv[1], hsv[2]);
+        return harmony;
+    }
+
+    @Benchmark
+    public int[] generateHSV() {
+        ColorHarmony.generate(mColors[mIndex++ & (SIZE - 1)], ColorHarmony.Scheme.TETRADIC,
+                ColorHarmony.Space.HSV, mHarmony);
+        return mHarmony;
+    }
+
+    @Benchmark
+    public int[] generateOkLch() {
+        ColorHarmony.generate(mColors[mIndex++ & (SIZE - 1)], ColorHarmony.Scheme.TETRADIC,
+                ColorHarmony.Space.OKLCH, mHarmony);
+        return mHarmony;
+    }
+}
@@ -0,0 +1,77 @@
+package com.github.mata1.simpledroidcolorpicker.benchmark;
+
+import com.github.mata1.simpledroidcolorpicker.utils.AtomicHistogram;
+import com.github.mata1.simpledroidcolorpicker.utils.PickerMetrics;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * Metrics recording cost: single recorder, recorders contending with each other and with a snapshot reader,
+ * and the null check pickers pay with metrics disabled
+ */
+@State(Scope.Group)
+public class MetricsBenchmark {
+
+    private static final int SIZE = 1024; // power of two, used as index mask
+
+    private AtomicHistogram mHistogram;
+    private PickerMetrics mMetrics, mDisabled;
+    private long[] mValues;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int index;
+    }
+
+    @Setup
+    public void setup() {
+        mHistogram = new AtomicHistogram();
+        mMetrics = new PickerMetrics();
+        mDisabled = null;
+
+        // frame-like durations, 100us..20ms
+        Random r = new Random(42);
+        mValues = new long[SIZE];
+        for (int i = 0; i < SIZE; i++)
+            mValues[i] = 100000 + (long)(r.nextDouble() * r.nextDouble() * 20000000);
+    }
+
+    private long next(Cursor cursor) {
+        return mValues[cursor.index++ & (SIZE - 1)];
+    }
+
+    @Benchmark
+    @Group("single")
+    public void record(Cursor cursor) {
+        mHistogram.record(next(cursor));
+    }
+
+    @Benchmark
+    @Group("disabled")
+    public void recordDisabled(Cursor cursor) {
+        PickerMetrics metrics = mDisabled;
+        if (metrics != null)
+            metrics.record(PickerMetrics.Metric.DRAW_TIME, next(cursor));
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(4)
+    public void recordContended(Cursor cursor) {
+        mMetrics.record(PickerMetrics.Metric.DRAW_TIME, next(cursor));
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public long snapshotContended() {
+        return mMetrics.getSnapshot(PickerMetrics.Metric.DRAW_TIME).getValueAtPercentile(99);
+    }
+}
@@ -0,0 +1,82 @@
+package com.github.mata1.simpledroidcolorpicker.benchmark;
+
+import com.github.mata1.simpledroidcolorpicker.utils.PaletteExtractor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Palette extraction from one megapixel, so ms/op reads as ms per megapixel: histogram on one thread vs all cores,
+ * then median cut and k-means on the histogram
+ */
+@State(Scope.Thread)
+public class PaletteExtractorBenchmark {
+
+    private static final int WIDTH = 1024, HEIGHT = 1024;
+    private static final int COLORS = 8;
+
+    private int[] mPixels, mHistogram;
+    private ExecutorService mExecutor;
+    private int mThreads;
+
+    @Setup
+    public void setup() {
+        // photo-like image: smooth gradients with noise, spreading over a few thousand bins
+        Random r = new Random(42);
+        mPixels = new int[WIDTH * HEIGHT];
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                int red = clamp(x * 255 / WIDTH + (int)(r.nextGaussian() * 12));
+                int green = clamp(y * 255 / HEIGHT + (int)(r.nextGaussian() * 12));
+                int blue = clamp((x + y) * 127 / WIDTH + (int)(r.nextGaussian() * 12));
+                mPixels[y * WIDTH + x] = 0xFF000000 | red << 16 | green << 8 | blue;
+            }
+        }
+        mHistogram = PaletteExtractor.buildHistogram(mPixels, 0, mPixels.length);
+
+        mThreads = Runtime.getRuntime().availableProcessors();
+        mExecutor = Executors.newFixedThreadPool(mThreads);
+    }
+
+    private static int clamp(int v) {
+        return Math.max(0, Math.min(255, v));
+    }
+
+    @TearDown
+    public void tearDown() {
+        mExecutor.shutdown();
+    }
+
+    @Benchmark
+    public int[] histogram() {
+        return PaletteExtractor.buildHistogram(mPixels, 0, mPixels.length);
+    }
+
+    @Benchmark
+    public int[] histogramParallel() throws InterruptedException {
+        return PaletteExtractor.buildHistogram(mExecutor, mPixels, 0, mPixels.length, mThreads);
+    }
+
+    @Benchmark
+    public List<PaletteExtractor.Swatch> medianCut() {
+        return PaletteExtractor.medianCut(mHistogram, COLORS);
+    }
+
+    @Benchmark
+    public List<PaletteExtractor.Swatch> kMeansRGB() {
+        return PaletteExtractor.kMeans(mHistogram, COLORS, false, 42);
+    }
+
+    @Benchmark
+    public List<PaletteExtractor.Swatch> kMeansOkLab() {
+        return PaletteExtractor.kMeans(mHistogram, COLORS, true, 42);
+    }
+}
@@ -0,0 +1,81 @@
+package com.github.mata1.simpledroidcolorpicker.benchmark;
+
+import com.github.mata1.simpledroidcolorpicker.tools.PaletteConverter;
+import com.github.mata1.simpledroidcolorpicker.utils.PaletteFile;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.util.Random;
+
+/**
+ * Palette loading benchmarks, memory-mapped binary palette against parsing JSON
+ */
+@State(Scope.Thread)
+public class PaletteFileBenchmark {
+
+    @Param({ "10000", "100000" })
+    public int paletteSize;
+
+    private File mFile;
+    private String mJson;
+    private int mIndex;
+
+    @Setup
+    public void setup() throws IOException {
+        Random r = new Random(42);
+        int[] colors = new int[paletteSize];
+        String[] names = new String[paletteSize];
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < paletteSize; i++) {
+            colors[i] = 0xFF000000 | r.nextInt(0x1000000);
+            names[i] = "Color " + i;
+            if (i > 0)
+                json.append(',');
+            json.append(String.format("{\"name\":\"%s\",\"color\":\"#%06X\"}", names[i], colors[i] & 0xFFFFFF));
+        }
+        mJson = json.append(']').toString();
+
+        mFile = File.createTempFile("palette", ".sdcp");
+        OutputStream out = new FileOutputStream(mFile);
+        try {
+            PaletteFile.write(out, colors, names, PaletteFile.COLUMNS_HSV | PaletteFile.COLUMNS_OKLAB);
+        } finally {
+            out.close();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        mFile.delete();
+    }
+
+    @Benchmark
+    public int openMapped() throws IOException {
+        PaletteFile palette = PaletteFile.open(mFile);
+        mIndex = (mIndex + 7919) % paletteSize;
+        return palette.getColor(mIndex);
+    }
+
+    @Benchmark
+    public int parseJson() throws IOException {
+        return PaletteConverter.convert(new StringReader(mJson), new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        }, 0);
+    }
+}
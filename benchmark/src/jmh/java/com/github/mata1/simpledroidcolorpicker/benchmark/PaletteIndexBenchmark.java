@@ -0,0 +1,93 @@
+package com.github.mata1.simpledroidcolorpicker.benchmark;
+
+import com.github.mata1.simpledroidcolorpicker.utils.ColorSpaceUtils;
+import com.github.mata1.simpledroidcolorpicker.utils.PaletteIndex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Palette index build and nearest color lookup benchmarks, against a linear scan.
+ * Random queries fall inside the full gamut palette, but mostly outside the bounds of the gray palette
+ */
+@State(Scope.Thread)
+public class PaletteIndexBenchmark {
+
+    private static final int SIZE = 1024; // power of two, used as index mask
+
+    @Param({ "10000", "100000", "1000000" })
+    public int paletteSize;
+
+    @Param({ "full", "gray" })
+    public String palette;
+
+    private int[] mPalette;
+    private float[] mPaletteLab;
+    private PaletteIndex mIndex;
+    private int[] mQueries;
+    private float[] mLab;
+    private int mQuery;
+
+    @Setup
+    public void setup() {
+        Random r = new Random(42);
+        mPalette = new int[paletteSize];
+        mPaletteLab = new float[paletteSize * 3];
+        mLab = new float[3];
+        for (int i = 0; i < paletteSize; i++) {
+            if (palette.equals("gray"))
+                mPalette[i] = 0xFF000000 | (int)((long)i * 255 / (paletteSize - 1)) * 0x010101;
+            else
+                mPalette[i] = 0xFF000000 | r.nextInt(0x1000000);
+            ColorSpaceUtils.colorToOkLab(mPalette[i], mLab);
+            System.arraycopy(mLab, 0, mPaletteLab, i * 3, 3);
+        }
+        mQueries = new int[SIZE];
+        for (int i = 0; i < SIZE; i++)
+            mQueries[i] = 0xFF000000 | r.nextInt(0x1000000);
+        mIndex = new PaletteIndex(mPalette);
+    }
+
+    private int next() {
+        return mQueries[mQuery = (mQuery + 1) & (SIZE - 1)];
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public PaletteIndex build() {
+        return new PaletteIndex(mPalette);
+    }
+
+    @Benchmark
+    public int findNearest() {
+        return mIndex.findNearest(next());
+    }
+
+    @Benchmark
+    public int linearScan() {
+        ColorSpaceUtils.colorToOkLab(next(), mLab);
+        int best = -1;
+        float bestDist = Float.MAX_VALUE;
+        for (int i = 0; i < paletteSize; i++) {
+            float dL = mPaletteLab[i * 3] - mLab[0];
+            float dA = mPaletteLab[i * 3 + 1] - mLab[1];
+            float dB = mPaletteLab[i * 3 + 2] - mLab[2];
+            float dist = dL * dL + dA * dA + dB * dB;
+            if (dist < bestDist) {
+                bestDist = dist;
+                best = i;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,116 @@
+package com.github.mata1.simpledroidcolorpicker.benchmark;
+
+import com.github.mata1.simpledroidcolorpicker.utils.ColorUtils;
+import com.github.mata1.simpledroidcolorpicker.utils.PolarMath;
+import com.github.mata1.simpledroidcolorpicker.utils.Utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * Per-event touch to color mapping, mirroring the math done by the pickers' handleTouch and moveHandleTo
+ * for a 1080px view. Views themselves need a device, so only the geometry and color work is measured.
+ */
+@State(Scope.Thread)
+public class TouchMappingBenchmark {
+
+    private static final int SIZE = 1024; // power of two, used as index mask
+    private static final float VIEW_SIZE = 1080;
+    private static final float HALF = VIEW_SIZE / 2;
+
+    private static final float RING_INNER = 380, RING_OUTER = 500;
+    private static final float CIRCLE_RADIUS = 480;
+    private static final float LINEAR_LEFT = 48, LINEAR_RIGHT = VIEW_SIZE - 48;
+
+    private float[] mX, mY;
+    private float mSat = 0.8f, mVal = 0.9f, mHue = 120;
+    private int mIndex;
+
+    @Setup
+    public void setup() {
+        Random r = new Random(42);
+        mX = new float[SIZE];
+        mY = new float[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            mX[i] = r.nextFloat() * VIEW_SIZE;
+            mY[i] = r.nextFloat() * VIEW_SIZE;
+        }
+    }
+
+    private int next() {
+        return mIndex = (mIndex + 1) & (SIZE - 1);
+    }
+
+    @Benchmark
+    public int ring() {
+        int i = next();
+        float x = mX[i] - HALF;
+        float y = mY[i] - HALF;
+
+        float dist = Utils.getDistance(0, 0, x, y);
+        if (dist < RING_INNER || dist > RING_OUTER)
+            return 0;
+
+        float angle = Utils.normalizeAngle(Utils.getAngleDeg(0, 0, x, y));
+        return ColorUtils.getColorFromHSV(Utils.normalizeAngle(angle), mSat, mVal);
+    }
+
+    @Benchmark
+    public int circle() {
+        int i = next();
+        float x = mX[i] - HALF;
+        float y = mY[i] - HALF;
+
+        // clamp to circle edge
+        float centerDist = Utils.getDistance(x, y, 0, 0);
+        double angle = Utils.getAngle(0, 0, x, y);
+        x = (float)Math.cos(angle) * Math.min(centerDist, CIRCLE_RADIUS);
+        y = (float)Math.sin(angle) * Math.min(centerDist, CIRCLE_RADIUS);
+
+        float hue = Utils.getAngleDeg(0, 0, x, y);
+        float sat = Utils.getDistance(0, 0, x, y) / CIRCLE_RADIUS;
+        return ColorUtils.getColorFromHSV(hue, sat, mVal);
+    }
+
+    @Benchmark
+    public int ringPolar() {
+        int i = next();
+        float x = mX[i] - HALF;
+        float y = mY[i] - HALF;
+
+        if (!PolarMath.isWithinRing(PolarMath.distanceSquared(x, y), RING_INNER, RING_OUTER))
+            return 0;
+
+        return ColorUtils.getColorFromHSV(PolarMath.atan2Deg(y, x), mSat, mVal);
+    }
+
+    @Benchmark
+    public int circlePolar() {
+        int i = next();
+        float x = mX[i] - HALF;
+        float y = mY[i] - HALF;
+
+        // clamp to circle edge
+        float distSq = PolarMath.distanceSquared(x, y);
+        if (!PolarMath.isWithin(distSq, CIRCLE_RADIUS) && distSq > 0) {
+            float scale = CIRCLE_RADIUS / (float)Math.sqrt(distSq);
+            x *= scale;
+            y *= scale;
+        }
+
+        float hue = PolarMath.atan2Deg(y, x);
+        float sat = Math.min((float)Math.sqrt(PolarMath.distanceSquared(x, y)) / CIRCLE_RADIUS, 1);
+        return ColorUtils.getColorFromHSV(hue, sat, mVal);
+    }
+
+    @Benchmark
+    public int linear() {
+        float x = Utils.clamp(mX[next()], LINEAR_LEFT, LINEAR_RIGHT);
+        float fraction = Math.max((x - LINEAR_LEFT) / (LINEAR_RIGHT - LINEAR_LEFT), 0.01f);
+        return ColorUtils.getColorFromHSV(mHue, fraction, mVal);
+    }
+}
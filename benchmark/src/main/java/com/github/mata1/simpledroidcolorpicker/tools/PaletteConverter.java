@@ -0,0 +1,273 @@
+package com.github.mata1.simpledroidcolorpicker.tools;
+
+import com.github.mata1.simpledroidcolorpicker.utils.PaletteFile;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Converts JSON palettes to binary {@link PaletteFile} palettes at build time, usable from code or as a
+ * command line tool. JVM only, apps ship the converted palettes rather than this converter:
+ * <pre>
+ * ./gradlew :benchmark:convertPalette -PconverterArgs="[--hsv] [--oklab] palette.json palette.sdcp"
+ * </pre>
+ * Accepted JSON palettes, optionally wrapped in an object with a "colors" member:
+ * <ul>
+ *     <li>array of colors: {@code ["#FF0000", "#00FF00"]}</li>
+ *     <li>array of named colors: {@code [{"name": "Red", "color": "#FF0000"}]}</li>
+ *     <li>object of named colors: {@code {"Red": "#FF0000"}}</li>
+ * </ul>
+ * Colors are "#RGB", "#RRGGBB" or "#AARRGGBB" strings, or ARGB numbers
+ */
+public class PaletteConverter {
+
+    public static void main(String[] args) throws IOException {
+        int columns = 0;
+        List<String> files = new ArrayList<String>();
+        for (String arg : args) {
+            if (arg.equals("--hsv"))
+                columns |= PaletteFile.COLUMNS_HSV;
+            else if (arg.equals("--oklab"))
+                columns |= PaletteFile.COLUMNS_OKLAB;
+            else
+                files.add(arg);
+        }
+
+        if (files.size() != 2) {
+            System.err.println("Usage: PaletteConverter [--hsv] [--oklab] <palette.json> <palette.sdcp>");
+            System.exit(1);
+        }
+
+        Reader in = new BufferedReader(new InputStreamReader(new FileInputStream(files.get(0)), "UTF-8"));
+        try {
+            OutputStream out = new BufferedOutputStream(new FileOutputStream(files.get(1)));
+            try {
+                int count = convert(in, out, columns);
+                System.out.println("Converted " + count + " colors");
+            } finally {
+                out.close();
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Convert JSON palette to binary palette
+     * @param json JSON palette, not closed
+     * @param out binary palette output, not closed
+     * @param columns precomputed columns to include, see {@link PaletteFile#write(OutputStream, int[], String[], int)}
+     * @return number of converted colors
+     * @throws IOException if reading, parsing or writing fails
+     */
+    public static int convert(Reader json, OutputStream out, int columns) throws IOException {
+        Object root = new JsonReader(json).readValue();
+        if (root instanceof Map && ((Map<?, ?>)root).containsKey("colors"))
+            root = ((Map<?, ?>)root).get("colors");
+
+        List<Integer> colors = new ArrayList<Integer>();
+        List<String> names = new ArrayList<String>();
+        boolean named = false;
+
+        if (root instanceof List) {
+            for (Object entry : (List<?>)root) {
+                if (entry instanceof Map) {
+                    Map<?, ?> map = (Map<?, ?>)entry;
+                    Object name = map.get("name");
+                    Object color = map.containsKey("color") ? map.get("color") : map.get("hex");
+                    colors.add(parseColor(color));
+                    names.add(name != null ? name.toString() : null);
+                    named |= name != null;
+                } else {
+                    colors.add(parseColor(entry));
+                    names.add(null);
+                }
+            }
+        } else if (root instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>)root).entrySet()) {
+                colors.add(parseColor(entry.getValue()));
+                names.add(entry.getKey().toString());
+            }
+            named = true;
+        } else {
+            throw new IOException("Palette must be a JSON array or object");
+        }
+
+        int[] c = new int[colors.size()];
+        for (int i = 0; i < c.length; i++)
+            c[i] = colors.get(i);
+        PaletteFile.write(out, c, named ? names.toArray(new String[names.size()]) : null, columns);
+        return c.length;
+    }
+
+    private static int parseColor(Object value) throws IOException {
+        if (value instanceof Number)
+            return (int)((Number)value).longValue();
+
+        String s = value != null ? value.toString().trim() : "";
+        if (s.startsWith("#"))
+            s = s.substring(1);
+        try {
+            switch (s.length()) {
+                case 3: // RGB
+                    int rgb = Integer.parseInt(s, 16);
+                    return 0xFF000000 | ((rgb & 0xF00) * 0x1100) | ((rgb & 0xF0) * 0x110) | ((rgb & 0xF) * 0x11);
+                case 6: // RRGGBB
+                    return 0xFF000000 | Integer.parseInt(s, 16);
+                case 8: // AARRGGBB
+                    return (int)Long.parseLong(s, 16);
+            }
+        } catch (NumberFormatException e) {
+            // fall through
+        }
+        throw new IOException("Invalid color " + value);
+    }
+
+    /**
+     * Minimal JSON reader, values are read into lists, maps, strings, numbers, booleans and null
+     */
+    private static class JsonReader {
+        private final Reader mReader;
+        private int mPeek = -2; // -2 when nothing peeked
+
+        JsonReader(Reader reader) {
+            mReader = reader;
+        }
+
+        Object readValue() throws IOException {
+            int c = skipWhitespace();
+            switch (c) {
+                case '{': return readObject();
+                case '[': return readArray();
+                case '"': return readString();
+                case 't': expect("rue"); return Boolean.TRUE;
+                case 'f': expect("alse"); return Boolean.FALSE;
+                case 'n': expect("ull"); return null;
+                case -1: throw new IOException("Unexpected end of JSON");
+                default: return readNumber(c);
+            }
+        }
+
+        private Map<String, Object> readObject() throws IOException {
+            Map<String, Object> map = new LinkedHashMap<String, Object>();
+            int c = skipWhitespace();
+            if (c == '}')
+                return map;
+            while (true) {
+                if (c != '"')
+                    throw new IOException("Expected member name");
+                String key = readString();
+                if (skipWhitespace() != ':')
+                    throw new IOException("Expected ':'");
+                map.put(key, readValue());
+
+                c = skipWhitespace();
+                if (c == '}')
+                    return map;
+                if (c != ',')
+                    throw new IOException("Expected ',' or '}'");
+                c = skipWhitespace();
+            }
+        }
+
+        private List<Object> readArray() throws IOException {
+            List<Object> list = new ArrayList<Object>();
+            int c = skipWhitespace();
+            if (c == ']')
+                return list;
+            mPeek = c;
+            while (true) {
+                list.add(readValue());
+                c = skipWhitespace();
+                if (c == ']')
+                    return list;
+                if (c != ',')
+                    throw new IOException("Expected ',' or ']'");
+            }
+        }
+
+        private String readString() throws IOException {
+            StringBuilder sb = new StringBuilder();
+            while (true) {
+                int c = read();
+                if (c == '"')
+                    return sb.toString();
+                if (c == -1)
+                    throw new IOException("Unterminated string");
+                if (c == '\\') {
+                    c = read();
+                    switch (c) {
+                        case 'b': sb.append('\b'); break;
+                        case 'f': sb.append('\f'); break;
+                        case 'n': sb.append('\n'); break;
+                        case 'r': sb.append('\r'); break;
+                        case 't': sb.append('\t'); break;
+                        case 'u':
+                            char[] hex = new char[4];
+                            for (int i = 0; i < 4; i++)
+                                hex[i] = (char)read();
+                            try {
+                                sb.append((char)Integer.parseInt(new String(hex), 16));
+                            } catch (NumberFormatException e) {
+                                throw new IOException("Invalid escape \\u" + new String(hex));
+                            }
+                            break;
+                        default: sb.append((char)c); break; // quote, backslash, slash
+                    }
+                } else {
+                    sb.append((char)c);
+                }
+            }
+        }
+
+        private Number readNumber(int first) throws IOException {
+            StringBuilder sb = new StringBuilder();
+            int c = first;
+            while (c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E' || (c >= '0' && c <= '9')) {
+                sb.append((char)c);
+                c = read();
+            }
+            mPeek = c;
+            try {
+                String s = sb.toString();
+                if (s.indexOf('.') < 0 && s.indexOf('e') < 0 && s.indexOf('E') < 0)
+                    return Long.parseLong(s);
+                return Double.parseDouble(s);
+            } catch (NumberFormatException e) {
+                throw new IOException("Invalid JSON value near '" + sb + (char)c + "'");
+            }
+        }
+
+        private void expect(String rest) throws IOException {
+            for (int i = 0; i < rest.length(); i++)
+                if (read() != rest.charAt(i))
+                    throw new IOException("Invalid JSON literal");
+        }
+
+        private int skipWhitespace() throws IOException {
+            int c = read();
+            while (c == ' ' || c == '\n' || c == '\r' || c == '\t')
+                c = read();
+            return c;
+        }
+
+        private int read() throws IOException {
+            if (mPeek != -2) {
+                int c = mPeek;
+                mPeek = -2;
+                return c;
+            }
+            return mReader.read();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.github.mata1.simpledroidcolorpicker.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Lookup table conversion against exact conversion
+ */
+public class ColorUtilsTest {
+
+    private static final int HUE_STEPS = 3600;
+    private static final int FIXED_STEPS = 4096; // fixed-point saturation steps
+    private static final int VALUE_STEPS = 255 * 16; // fixed-point value steps
+
+    @Test
+    public void lookupMatchesExactForEveryHueStep() {
+        for (int h = 0; h < HUE_STEPS; h++) {
+            float hue = h * 360f / HUE_STEPS;
+            for (int s = 0; s <= 255; s++)
+                for (int v = 0; v <= 255; v++)
+                    assertWithinOne(hue, s / 255f, v / 255f);
+        }
+    }
+
+    @Test
+    public void lookupMatchesExactForEverySaturationAndValueStep() {
+        // sector boundaries and midpoints, where channels are flat or halfway
+        for (int h = 0; h < 12; h++) {
+            float hue = h * 30f;
+            for (int s = 0; s <= FIXED_STEPS; s++)
+                for (int v = 0; v <= VALUE_STEPS; v++)
+                    assertWithinOne(hue, s / (float)FIXED_STEPS, v / (float)VALUE_STEPS);
+        }
+    }
+
+    @Test
+    public void hueIsWrapped() {
+        float[] hues = { -1e-6f, -360, -0.05f, 360, 359.99997f, 720.5f, -719.5f };
+        for (float hue : hues) {
+            assertWithinOne(hue, 1, 1);
+            assertWithinOne(hue, 0.5f, 0.75f);
+        }
+        assertEquals(0xFFFF0000, ColorUtils.HSVToColorExact(-1e-6f, 1, 1));
+        assertEquals(0xFFFF0000, ColorUtils.HSVToColorLookup(-1e-6f, 1, 1));
+    }
+
+    @Test
+    public void conversionModeSelectsLookup() {
+        try {
+            ColorUtils.setConversionMode(ColorUtils.ConversionMode.LOOKUP_TABLE);
+            assertEquals(ColorUtils.HSVToColorLookup(123.4f, 0.3f, 0.6f), ColorUtils.HSVToColor(123.4f, 0.3f, 0.6f));
+        } finally {
+            ColorUtils.setConversionMode(ColorUtils.ConversionMode.EXACT);
+        }
+        assertEquals(ColorUtils.HSVToColorExact(123.4f, 0.3f, 0.6f), ColorUtils.HSVToColor(123.4f, 0.3f, 0.6f));
+    }
+
+    private static void assertWithinOne(float hue, float saturation, float value) {
+        int exact = ColorUtils.HSVToColorExact(hue, saturation, value);
+        int lookup = ColorUtils.HSVToColorLookup(hue, saturation, value);
+        for (int shift = 0; shift <= 24; shift += 8) {
+            int diff = Math.abs(((exact >> shift) & 0xFF) - ((lookup >> shift) & 0xFF));
+            if (diff > 1)
+                fail(String.format("hsv(%s, %s, %s): exact #%08X, lookup #%08X", hue, saturation, value,
+                        exact, lookup));
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.github.mata1.simpledroidcolorpicker.utils;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Nearest color lookup against a brute force scan, with queries inside and outside the palette bounds
+ */
+public class PaletteIndexTest {
+
+    private static final int[] QUERIES = {
+            0xFFFF0000, 0xFFFF8800, 0xFFFFFF00, 0xFF00FF00, 0xFF00FFFF, 0xFF0000FF, 0xFFFF00FF,
+            0xFF000000, 0xFFFFFFFF, 0xFF808080, 0xFF102030, 0xFFF0E0D0
+    };
+
+    @Test
+    public void matchesBruteForceOnFullGamutPalette() {
+        Random r = new Random(1);
+        for (int n : new int[] { 1, 2, 10, 1000, 20000 }) {
+            int[] palette = new int[n];
+            for (int i = 0; i < n; i++)
+                palette[i] = 0xFF000000 | r.nextInt(0x1000000);
+            check(palette, r);
+        }
+    }
+
+    @Test
+    public void matchesBruteForceOnGrayPalette() {
+        Random r = new Random(2);
+        for (int n : new int[] { 2, 500, 2000, 5000 }) {
+            int[] palette = new int[n];
+            for (int i = 0; i < n; i++)
+                palette[i] = 0xFF000000 | (i * 255 / (n - 1)) * 0x010101;
+            check(palette, r);
+        }
+    }
+
+    @Test
+    public void matchesBruteForceOnNarrowPalettes() {
+        Random r = new Random(3);
+        for (int n : new int[] { 50, 5000 }) {
+            int[] blues = new int[n];
+            int[] reds = new int[n];
+            int[] single = new int[n];
+            for (int i = 0; i < n; i++) {
+                blues[i] = 0xFF000000 | r.nextInt(40) << 16 | r.nextInt(60) << 8 | (150 + r.nextInt(106));
+                reds[i] = 0xFF000000 | (200 + r.nextInt(56)) << 16 | r.nextInt(30) << 8 | r.nextInt(30);
+                single[i] = 0xFF336699;
+            }
+            check(blues, r);
+            check(reds, r);
+            check(single, r);
+        }
+    }
+
+    @Test
+    public void emptyPalette() {
+        PaletteIndex index = new PaletteIndex(new int[0]);
+        assertEquals(-1, index.findNearest(0xFFFF0000));
+        assertEquals(0xFFFF0000, index.getNearestColor(0xFFFF0000));
+    }
+
+    private static void check(int[] palette, Random r) {
+        PaletteIndex index = new PaletteIndex(palette);
+        float[] lab = new float[palette.length * 3];
+        float[] tmp = new float[3];
+        for (int i = 0; i < palette.length; i++) {
+            ColorSpaceUtils.colorToOkLab(palette[i], tmp);
+            System.arraycopy(tmp, 0, lab, i * 3, 3);
+        }
+
+        for (int query : QUERIES)
+            checkQuery(index, lab, query);
+        for (int i = 0; i < 500; i++)
+            checkQuery(index, lab, 0xFF000000 | r.nextInt(0x1000000));
+    }
+
+    private static void checkQuery(PaletteIndex index, float[] lab, int query) {
+        float[] q = new float[3];
+        ColorSpaceUtils.colorToOkLab(query, q);
+
+        float bestDist = Float.MAX_VALUE;
+        for (int i = 0; i < lab.length / 3; i++)
+            bestDist = Math.min(bestDist, distance(lab, i, q));
+
+        // ties may resolve to any of the equally near colors
+        int found = index.findNearest(query);
+        assertEquals(String.format("query #%08X, palette of %d", query, lab.length / 3),
+                bestDist, distance(lab, found, q), 0);
+    }
+
+    private static float distance(float[] lab, int i, float[] q) {
+        float dL = lab[i * 3] - q[0];
+        float dA = lab[i * 3 + 1] - q[1];
+        float dB = lab[i * 3 + 2] - q[2];
+        return dL * dL + dA * dA + dB * dB;
+    }
+}
@@ -0,0 +1,96 @@
+package com.github.mata1.simpledroidcolorpicker.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Polynomial approximations against {@link Math}, within the bounds documented in {@link PolarMath}
+ */
+public class PolarMathTest {
+
+    private static final double ATAN2_TOLERANCE = 0.0002; // degrees
+    private static final double SIN_TOLERANCE = 0.0000005;
+
+    @Test
+    public void atan2DegWithinBoundAroundCircle() {
+        float[] radii = { 1e-3f, 1, 150, 1e4f };
+        for (float r : radii) {
+            for (int i = 0; i < 36000; i++) {
+                double rad = Math.toRadians(i / 100.0);
+                assertAtan2((float)(Math.sin(rad) * r), (float)(Math.cos(rad) * r));
+            }
+        }
+    }
+
+    @Test
+    public void atan2DegWithinBoundNearAxes() {
+        float[] small = { Float.MIN_VALUE, 1e-30f, 1e-7f, 1e-4f, 0.01f };
+        for (float s : small) {
+            for (float sign : new float[] { 1, -1 }) {
+                assertAtan2(s * sign, 1);
+                assertAtan2(s * sign, -1);
+                assertAtan2(1, s * sign);
+                assertAtan2(-1, s * sign);
+            }
+        }
+        // octant boundaries, where the folded ratio is 1
+        assertAtan2(1, 1);
+        assertAtan2(1, -1);
+        assertAtan2(-1, -1);
+        assertAtan2(-1, 1);
+    }
+
+    @Test
+    public void atan2DegOfZeros() {
+        assertEquals(0, PolarMath.atan2Deg(0, 0), 0);
+        assertEquals(0, PolarMath.atan2Deg(-0f, 0), 0);
+        assertEquals(0, PolarMath.atan2Deg(0, -0f), 0);
+        assertEquals(0, PolarMath.atan2Deg(-0f, -0f), 0);
+
+        // negative zero y stays on the axis instead of wrapping to 360
+        assertEquals(0, PolarMath.atan2Deg(-0f, 1), 0);
+        assertEquals(180, PolarMath.atan2Deg(-0f, -1), 0);
+        assertEquals(90, PolarMath.atan2Deg(1, -0f), 0);
+        assertEquals(270, PolarMath.atan2Deg(-1, -0f), 0);
+    }
+
+    @Test
+    public void sinDegAndCosDegWithinBound() {
+        for (int i = -72000; i <= 72000; i++) {
+            float deg = i / 100f;
+            assertSinCos(deg);
+        }
+    }
+
+    @Test
+    public void sinDegAndCosDegWithinBoundNearAxes() {
+        float[] offsets = { 0, Float.MIN_VALUE, 1e-6f, 1e-3f };
+        for (int axis = -360; axis <= 360; axis += 90) {
+            for (float offset : offsets) {
+                assertSinCos(axis + offset);
+                assertSinCos(axis - offset);
+            }
+        }
+        assertSinCos(-0f);
+        assertEquals(0, PolarMath.sinDeg(-0f), 0);
+        assertEquals(1, PolarMath.cosDeg(-0f), SIN_TOLERANCE);
+    }
+
+    private static void assertAtan2(float y, float x) {
+        float actual = PolarMath.atan2Deg(y, x);
+        assertTrue("atan2Deg(" + y + ", " + x + ") = " + actual + " out of range", actual >= 0 && actual < 360);
+
+        double expected = Math.toDegrees(Math.atan2(y, x));
+        double diff = Math.abs(actual - expected) % 360;
+        diff = Math.min(diff, 360 - diff); // 0 and 360 are the same angle
+        assertEquals("atan2Deg(" + y + ", " + x + ")", 0, diff, ATAN2_TOLERANCE);
+    }
+
+    private static void assertSinCos(float deg) {
+        double rad = Math.toRadians(deg);
+        assertEquals("sinDeg(" + deg + ")", Math.sin(rad), PolarMath.sinDeg(deg), SIN_TOLERANCE);
+        assertEquals("cosDeg(" + deg + ")", Math.cos(rad), PolarMath.cosDeg(deg), SIN_TOLERANCE);
+    }
+}
@@ -3,15 +3,23 @@ package com.github.mata1.simpledroidcolorpicker.dialogs;
 import android.app.AlertDialog;
 import android.content.Context;
 import android.content.DialogInterface;
+import android.graphics.Canvas;
 import android.graphics.Color;
 import android.view.View;
+import android.widget.LinearLayout;
 
 import com.github.mata1.simpledroidcolorpicker.R;
 import com.github.mata1.simpledroidcolorpicker.interfaces.OnColorChangedListener;
+import com.github.mata1.simpledroidcolorpicker.interfaces.OnColorHistoryChangedListener;
 import com.github.mata1.simpledroidcolorpicker.interfaces.OnColorPickedListener;
 import com.github.mata1.simpledroidcolorpicker.pickers.CircleColorPicker;
+import com.github.mata1.simpledroidcolorpicker.pickers.ColorPicker;
 import com.github.mata1.simpledroidcolorpicker.pickers.RingColorPicker;
 import com.github.mata1.simpledroidcolorpicker.pickers.linear.HSVLinearColorPicker;
+import com.github.mata1.simpledroidcolorpicker.utils.ColorHistory;
+import com.github.mata1.simpledroidcolorpicker.utils.PaletteExtractor;
+
+import java.util.List;
 
 /**
  * Created by matej on 17/04/15.
@@ -27,43 +35,143 @@ public class ColorPickerDialog extends AlertDialog implements OnColorChangedList
     private int mColor = Color.RED;
 
     private View mColorPicker = null;
+    private SwatchStripView mSwatchStrip, mSuggestionStrip;
+    private ColorHistory mColorHistory;
+    private Runnable mRefreshSwatches;
+    private OnColorHistoryChangedListener mHistoryListener;
+    private boolean mStarted; // history listener is only registered while shown, so history never holds the dialog
+
+    // timings in nanoseconds
+    private boolean mPickerReused;
+    private long mConstructionTime;
+    private long mShowTime, mFirstDrawTime = -1;
 
     public ColorPickerDialog(Context context, PickerType pickerType) {
         super(context);
 
-        init(context, pickerType);
+        init(context, pickerType, null);
     }
 
     public ColorPickerDialog(Context context, PickerType pickerType, int color) {
-        this(context, pickerType);
-        mColor = color;
+        this(context, pickerType, color, null);
     }
 
-    private void init(Context context, PickerType pickerType) {
-        // create color picker based on type
+    /**
+     * Create dialog reusing picker from cache, picker is constructed and cached only if none is cached yet
+     * @param context dialog context
+     * @param pickerType picker type
+     * @param color initial picker color
+     * @param cache picker cache with same context as dialog, may be null
+     */
+    public ColorPickerDialog(Context context, PickerType pickerType, int color, PickerCache cache) {
+        super(context);
+
+        init(context, pickerType, cache);
+        setPickerColor(color); // new pickers take it without animating or firing events until laid out
+    }
+
+    private void init(Context context, PickerType pickerType, PickerCache cache) {
+        if (cache != null && cache.getContext() != context)
+            throw new IllegalArgumentException("Picker cache belongs to another context");
+
+        mColorPicker = cache != null ? cache.take(pickerType) : null;
+        mPickerReused = mColorPicker != null;
+
+        if (!mPickerReused) {
+            long start = System.nanoTime();
+            // create color picker based on type
+            switch (pickerType) {
+                case RING:
+                    mColorPicker = new RingColorPicker(context, null);
+                    break;
+                case CIRCLE:
+                    mColorPicker = new CircleColorPicker(context, null);
+                    break;
+                case HSV:
+                    mColorPicker = new HSVLinearColorPicker(context);
+                    break;
+            }
+            int pad = context.getResources().getDimensionPixelSize(R.dimen.default_padding);
+            mColorPicker.setPadding(pad, pad, pad, pad);
+            mConstructionTime = System.nanoTime() - start;
+
+            if (cache != null)
+                cache.put(pickerType, mColorPicker);
+        }
+
+        // (re)attach listeners, cached picker still points at previous dialog
         switch (pickerType) {
             case RING:
-                mColorPicker = new RingColorPicker(context, null);
                 ((RingColorPicker)mColorPicker).setOnColorPickedListener(this);
                 break;
             case CIRCLE:
-                mColorPicker = new CircleColorPicker(context, null);
                 ((CircleColorPicker)mColorPicker).setOnColorChangedListener(this);
                 break;
             case HSV:
-                mColorPicker = new HSVLinearColorPicker(context, null); // TODO FIX
                 ((HSVLinearColorPicker)mColorPicker).setOnColorChangedListener(this);
                 break;
         }
         int pad = context.getResources().getDimensionPixelSize(R.dimen.default_padding);
-        mColorPicker.setPadding(pad, pad, pad, pad);
-        setView(mColorPicker);
+
+        // swatch strip below picker, hidden until history is set
+        mSwatchStrip = new SwatchStripView(context);
+        mSwatchStrip.setPadding(pad, 0, pad, pad);
+        mSwatchStrip.setVisibility(View.GONE);
+        mSwatchStrip.setOnColorPickedListener(new OnColorPickedListener() {
+            @Override
+            public void colorPicked(int color) {
+                setPickerColor(color);
+            }
+        });
+
+        // suggested colors strip, e.g. extracted from an image, hidden until set
+        mSuggestionStrip = new SwatchStripView(context);
+        mSuggestionStrip.setPadding(pad, 0, pad, pad);
+        mSuggestionStrip.setVisibility(View.GONE);
+        mSuggestionStrip.setOnColorPickedListener(new OnColorPickedListener() {
+            @Override
+            public void colorPicked(int color) {
+                setPickerColor(color);
+            }
+        });
+
+        mRefreshSwatches = new Runnable() {
+            @Override
+            public void run() {
+                mSwatchStrip.setColorHistory(mColorHistory);
+            }
+        };
+
+        // history may change on its loader thread
+        mHistoryListener = new OnColorHistoryChangedListener() {
+            @Override
+            public void historyChanged(ColorHistory history) {
+                mSwatchStrip.removeCallbacks(mRefreshSwatches);
+                mSwatchStrip.post(mRefreshSwatches);
+            }
+        };
+
+        LinearLayout layout = new LinearLayout(context) {
+            @Override
+            protected void dispatchDraw(Canvas canvas) {
+                super.dispatchDraw(canvas);
+                // first frame since shown, including lazily built shaders
+                if (mFirstDrawTime < 0 && mShowTime != 0)
+                    mFirstDrawTime = System.nanoTime() - mShowTime;
+            }
+        };
+        layout.setOrientation(LinearLayout.VERTICAL);
+        layout.addView(mColorPicker);
+        layout.addView(mSuggestionStrip);
+        layout.addView(mSwatchStrip);
+        setView(layout);
 
         // set buttons if not ring
         if (pickerType != PickerType.RING)
             setButton(BUTTON_POSITIVE, "Select", new OnClickListener() {
                 @Override
                 public void onClick(DialogInterface dialog, int which) {
+                    addRecent(mColor);
                     if (mListener != null)
                         mListener.colorPicked(mColor);
                 }
@@ -71,10 +179,97 @@ public class ColorPickerDialog extends AlertDialog implements OnColorChangedList
         //setButton(BUTTON_NEGATIVE, "Dismiss", (OnClickListener)null);
     }
 
+    @Override
+    protected void onStart() {
+        super.onStart();
+        mShowTime = System.nanoTime();
+        mFirstDrawTime = -1;
+
+        mStarted = true;
+        if (mColorHistory != null) {
+            mColorHistory.addListener(mHistoryListener);
+            mSwatchStrip.setColorHistory(mColorHistory); // changes while hidden were not delivered
+        }
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        mStarted = false;
+        if (mColorHistory != null)
+            mColorHistory.removeListener(mHistoryListener);
+        mSwatchStrip.removeCallbacks(mRefreshSwatches);
+    }
+
     public void setOnColorPickedListener(OnColorPickedListener listener) {
         mListener = listener;
     }
 
+    /**
+     * Set color history shown as swatches below the picker, picked colors are added to its recent colors.
+     * Swatches are refreshed from the in-memory history, so the UI thread never waits for disk.
+     * The history is only listened to while the dialog is shown, so it may outlive the dialog
+     * @param history color history, null to hide swatches
+     */
+    public void setColorHistory(ColorHistory history) {
+        if (mColorHistory != null)
+            mColorHistory.removeListener(mHistoryListener);
+
+        mColorHistory = history;
+        mSwatchStrip.setVisibility(history != null ? View.VISIBLE : View.GONE);
+        mSwatchStrip.setColorHistory(history);
+
+        if (history != null && mStarted)
+            history.addListener(mHistoryListener);
+    }
+
+    /**
+     * Set suggested colors shown as swatches below the picker, above color history
+     * @param swatches swatches, e.g. from {@link PaletteExtractor}, null or empty to hide suggestions
+     */
+    public void setSuggestedSwatches(List<PaletteExtractor.Swatch> swatches) {
+        boolean empty = swatches == null || swatches.isEmpty();
+        mSuggestionStrip.setVisibility(empty ? View.GONE : View.VISIBLE);
+        mSuggestionStrip.setColors(empty ? null : PaletteExtractor.toColors(swatches));
+    }
+
+    /**
+     * Get whether picker was taken from cache instead of constructed
+     * @return true if picker was reused
+     */
+    public boolean isPickerReused() {
+        return mPickerReused;
+    }
+
+    /**
+     * Get time spent constructing picker, including layout inflation
+     * @return construction time in nanoseconds, 0 if picker was reused
+     */
+    public long getPickerConstructionTime() {
+        return mConstructionTime;
+    }
+
+    /**
+     * Get time from last show to its first drawn frame, including shader creation
+     * @return first draw time in nanoseconds, -1 until drawn
+     */
+    public long getFirstDrawTime() {
+        return mFirstDrawTime;
+    }
+
+    private void setPickerColor(int color) {
+        mColor = color;
+        if (mColorPicker instanceof ColorPicker)
+            ((ColorPicker)mColorPicker).setColor(color);
+        else if (mColorPicker instanceof HSVLinearColorPicker)
+            ((HSVLinearColorPicker)mColorPicker).setColor(color);
+    }
+
+    private void addRecent(int color) {
+        if (mColorHistory != null)
+            mColorHistory.addRecent(color);
+    }
+
     @Override
     public void colorChanged(int color) {
         mColor = color;
@@ -82,6 +277,7 @@ public class ColorPickerDialog extends AlertDialog implements OnColorChangedList
 
     @Override
     public void colorPicked(int color) {
+        addRecent(color);
         if (mListener != null)
             mListener.colorPicked(color);
         dismiss();
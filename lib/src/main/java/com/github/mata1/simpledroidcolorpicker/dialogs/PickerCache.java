@@ -0,0 +1,59 @@
+package com.github.mata1.simpledroidcolorpicker.dialogs;
+
+import android.content.Context;
+import android.view.View;
+import android.view.ViewGroup;
+
+import java.util.EnumMap;
+
+/**
+ * Keeps one picker per type for reuse by {@link ColorPickerDialog}s, so reopening a dialog skips
+ * constructing its picker and rebuilding its shaders.
+ * Pickers hold on to the context they were created with, so keep the cache no longer than the context,
+ * e.g. in an activity field
+ */
+public class PickerCache {
+
+    private final Context mContext;
+    private final EnumMap<ColorPickerDialog.PickerType, View> mPickers;
+
+    /**
+     * Create picker cache
+     * @param context context pickers are created with, same as the dialogs'
+     */
+    public PickerCache(Context context) {
+        mContext = context;
+        mPickers = new EnumMap<ColorPickerDialog.PickerType, View>(ColorPickerDialog.PickerType.class);
+    }
+
+    /**
+     * Get context pickers are created with
+     * @return cache context
+     */
+    public Context getContext() {
+        return mContext;
+    }
+
+    /**
+     * Take cached picker, detached from its previous dialog
+     * @param type picker type
+     * @return cached picker, null if none
+     */
+    View take(ColorPickerDialog.PickerType type) {
+        View picker = mPickers.get(type);
+        if (picker != null && picker.getParent() instanceof ViewGroup)
+            ((ViewGroup)picker.getParent()).removeView(picker);
+        return picker;
+    }
+
+    void put(ColorPickerDialog.PickerType type, View picker) {
+        mPickers.put(type, picker);
+    }
+
+    /**
+     * Drop all cached pickers
+     */
+    public void clear() {
+        mPickers.clear();
+    }
+}
@@ -0,0 +1,147 @@
+package com.github.mata1.simpledroidcolorpicker.dialogs;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.SoundEffectConstants;
+import android.view.View;
+
+import com.github.mata1.simpledroidcolorpicker.R;
+import com.github.mata1.simpledroidcolorpicker.interfaces.OnColorPickedListener;
+import com.github.mata1.simpledroidcolorpicker.utils.ColorHistory;
+
+/**
+ * Row of color swatches, favorites first, then recent colors, or a plain list of colors.
+ * Swatches are drawn from an in-memory copy of the history, refreshed when the history changes
+ */
+public class SwatchStripView extends View {
+
+    private OnColorPickedListener mOnColorPickedListener;
+
+    private Paint mSwatchPaint, mStrokePaint;
+    private float mSwatchSize, mGap;
+
+    private int[] mColors; // favorites followed by recents not in favorites
+    private int mFavoriteCount, mCount;
+    private int[] mRecentBuffer;
+
+    public SwatchStripView(Context context) {
+        this(context, null);
+    }
+
+    public SwatchStripView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        init();
+    }
+
+    private void init() {
+        mSwatchSize = getResources().getDimensionPixelSize(R.dimen.default_swatchSize);
+        mGap = mSwatchSize / 4;
+
+        mSwatchPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        mStrokePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        mStrokePaint.setStyle(Paint.Style.STROKE);
+        mStrokePaint.setStrokeWidth(4);
+        mStrokePaint.setColor(Color.WHITE);
+
+        mColors = new int[0];
+        mRecentBuffer = new int[0];
+    }
+
+    /**
+     * Copy colors from history, without disk access. Call on the UI thread
+     * @param history color history, may be null
+     */
+    public void setColorHistory(ColorHistory history) {
+        if (history == null) {
+            mCount = 0;
+            mFavoriteCount = 0;
+        } else {
+            int capacity = history.getCapacity();
+            if (mColors.length != capacity * 2) {
+                mColors = new int[capacity * 2];
+                mRecentBuffer = new int[capacity];
+            }
+
+            mFavoriteCount = history.getFavoriteColors(mColors);
+            mCount = mFavoriteCount;
+            int recents = history.getRecentColors(mRecentBuffer);
+            for (int i = 0; i < recents; i++)
+                if (!isFavorite(mRecentBuffer[i]))
+                    mColors[mCount++] = mRecentBuffer[i];
+        }
+
+        requestLayout();
+        invalidate();
+    }
+
+    /**
+     * Copy colors to show as plain swatches, replacing history swatches
+     * @param colors swatch colors, may be null
+     */
+    public void setColors(int[] colors) {
+        mFavoriteCount = 0;
+        mCount = colors != null ? colors.length : 0;
+        if (mColors.length < mCount)
+            mColors = new int[mCount];
+        if (colors != null)
+            System.arraycopy(colors, 0, mColors, 0, mCount);
+
+        requestLayout();
+        invalidate();
+    }
+
+    private boolean isFavorite(int color) {
+        for (int i = 0; i < mFavoriteCount; i++)
+            if (mColors[i] == color)
+                return true;
+        return false;
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int desiredWidth = getPaddingLeft() + getPaddingRight() + (int)(mCount * (mSwatchSize + mGap));
+        int desiredHeight = mCount == 0 ? 0 : getPaddingTop() + getPaddingBottom() + (int)mSwatchSize;
+        setMeasuredDimension(resolveSize(desiredWidth, widthMeasureSpec), resolveSize(desiredHeight, heightMeasureSpec));
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        float r = mSwatchSize / 2;
+        float cy = getPaddingTop() + r;
+        for (int i = 0; i < mCount; i++) {
+            float cx = getPaddingLeft() + mGap / 2 + i * (mSwatchSize + mGap) + r;
+            if (cx - r > getWidth())
+                break;
+
+            mSwatchPaint.setColor(mColors[i]);
+            canvas.drawCircle(cx, cy, r, mSwatchPaint);
+            // favorites outlined
+            if (i < mFavoriteCount)
+                canvas.drawCircle(cx, cy, r - mStrokePaint.getStrokeWidth() / 2, mStrokePaint);
+        }
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (event.getActionMasked() == MotionEvent.ACTION_UP) {
+            int index = (int)((event.getX() - getPaddingLeft()) / (mSwatchSize + mGap));
+            if (index >= 0 && index < mCount && mOnColorPickedListener != null) {
+                mOnColorPickedListener.colorPicked(mColors[index]);
+                playSoundEffect(SoundEffectConstants.CLICK);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Set listener for swatch tapped event
+     * @param eventListener OnColorPickedListener event listener
+     */
+    public void setOnColorPickedListener(OnColorPickedListener eventListener) {
+        mOnColorPickedListener = eventListener;
+    }
+}
@@ -0,0 +1,10 @@
+package com.github.mata1.simpledroidcolorpicker.interfaces;
+
+import com.github.mata1.simpledroidcolorpicker.utils.ColorHistory;
+
+/**
+ * Listener for recent/favorite colors changing event, may be called from a background thread
+ */
+public interface OnColorHistoryChangedListener {
+    public void historyChanged(ColorHistory history);
+}
@@ -0,0 +1,9 @@
+package com.github.mata1.simpledroidcolorpicker.interfaces;
+
+/**
+ * Listener for color changing event, delivering high-precision color longs
+ * @see com.github.mata1.simpledroidcolorpicker.utils.ColorLongUtils
+ */
+public interface OnColorLongChangedListener {
+    public void colorChanged(long color);
+}
@@ -0,0 +1,15 @@
+package com.github.mata1.simpledroidcolorpicker.interfaces;
+
+import com.github.mata1.simpledroidcolorpicker.utils.ColorModel;
+
+/**
+ * Color model changed event listener, called at most once per frame
+ */
+public interface OnColorModelChangedListener {
+    /**
+     * Called when model channels changed since last call
+     * @param model changed color model
+     * @param channels changed channels, combination of ColorModel CHANNEL_ flags
+     */
+    void colorModelChanged(ColorModel model, int channels);
+}
@@ -0,0 +1,14 @@
+package com.github.mata1.simpledroidcolorpicker.interfaces;
+
+import com.github.mata1.simpledroidcolorpicker.utils.PickerMetrics;
+
+/**
+ * Picker metrics event listener
+ */
+public interface OnPickerMetricsListener {
+    /**
+     * Called on the main thread when a touch gesture on a picker recording into the metrics ends
+     * @param metrics updated metrics
+     */
+    void gestureFinished(PickerMetrics metrics);
+}
@@ -1,20 +1,21 @@
 package com.github.mata1.simpledroidcolorpicker.pickers;
 
-import android.animation.PropertyValuesHolder;
-import android.animation.ValueAnimator;
 import android.content.Context;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.RadialGradient;
+import android.graphics.RectF;
 import android.graphics.Shader;
 import android.graphics.SweepGradient;
 import android.util.AttributeSet;
 import android.view.MotionEvent;
 
-import com.github.mata1.simpledroidcolorpicker.interfaces.OnColorChangedListener;
 import com.github.mata1.simpledroidcolorpicker.pickers.linear.ValueLinearColorPicker;
+import com.github.mata1.simpledroidcolorpicker.utils.ColorModel;
 import com.github.mata1.simpledroidcolorpicker.utils.ColorUtils;
+import com.github.mata1.simpledroidcolorpicker.utils.HueShaderCache;
+import com.github.mata1.simpledroidcolorpicker.utils.PolarMath;
 import com.github.mata1.simpledroidcolorpicker.utils.Utils;
 
 /**
@@ -41,7 +42,6 @@ public class CircleColorPicker extends ColorPicker {
     protected void init() {
         super.init();
 
-        mColorPaint.setShader(new SweepGradient(0, 0, COLORS, null));
         mSaturationPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
         mValuePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
         mValuePaint.setAlpha((int)((1 - mVal) * 255));
@@ -56,24 +56,83 @@ public class CircleColorPicker extends ColorPicker {
         mRadius = Math.min(mHalfWidth, mHalfHeight) - getMaxPadding() - mHandleSize/2 - mHandleStrokePaint.getStrokeWidth()/2;
 
         // position circle based on HSV values
-        mHandleX = (float)Math.cos(Math.toRadians(mHue)) * mSat * mRadius;
-        mHandleY = (float)Math.sin(Math.toRadians(mHue)) * mSat * mRadius;
+        float position = hueToPosition(mHue);
+        mHandleX = PolarMath.cosDeg(position) * mSat * mRadius;
+        mHandleY = PolarMath.sinDeg(position) * mSat * mRadius;
+
+        invalidateShader();
+    }
+
+    @Override
+    protected void updateShaders() {
+        mColorPaint.setShader(createHueGradient());
 
         // set paint radial shader
-        RadialGradient radialGradient = new RadialGradient(0, 0, mRadius, 0xFFFFFFFF, 0x00FFFFFF, Shader.TileMode.CLAMP);
-        mSaturationPaint.setShader(radialGradient);
+        if (mRadius > 0) {
+            RadialGradient radialGradient = new RadialGradient(0, 0, mRadius, 0xFFFFFFFF, 0x00FFFFFF, Shader.TileMode.CLAMP);
+            mSaturationPaint.setShader(radialGradient);
+        }
     }
 
     @Override
     protected void onDraw(Canvas canvas) {
+        // hue/saturation disc with value overlay
+        renderTrack(canvas);
+
         canvas.translate(mHalfWidth, mHalfHeight);
 
+        // harmony markers at their hue and saturation
+        int harmonies = updateHarmony();
+        for (int i = 1; i < harmonies; i++) {
+            float position = hueToPosition(mHarmonyHues[i]);
+            float r = mHarmonySats[i] * mRadius;
+            drawHarmonyMarker(canvas, PolarMath.cosDeg(position) * r, PolarMath.sinDeg(position) * r,
+                    mHarmonyColors[i]);
+        }
+
+        canvas.drawCircle(mHandleX, mHandleY, mHandleSize/2, mHandlePaint);
+        canvas.drawCircle(mHandleX, mHandleY, mHandleSize/2, mHandleStrokePaint);
+    }
+
+    /**
+     * Create hue sweep gradient for current hue mode
+     * @return hue shader
+     */
+    private Shader createHueGradient() {
+        if (mHueMode == HueMode.PERCEPTUAL)
+            return HueShaderCache.getInstance().getSweepGradient(1, 1, true);
+        return new SweepGradient(0, 0, COLORS, null);
+    }
+
+    @Override
+    protected void drawTrack(Canvas canvas) {
+        if (mRadius <= 0)
+            return;
+
+        // shaders are centered at origin
+        int save = canvas.save();
+        canvas.translate(mHalfWidth, mHalfHeight);
         canvas.drawCircle(0, 0, mRadius, mColorPaint);
         canvas.drawCircle(0, 0, mRadius, mSaturationPaint);
         canvas.drawCircle(0, 0, mRadius + 1, mValuePaint);
+        canvas.restoreToCount(save);
+    }
 
-        canvas.drawCircle(mHandleX, mHandleY, mHandleSize/2, mHandlePaint);
-        canvas.drawCircle(mHandleX, mHandleY, mHandleSize/2, mHandleStrokePaint);
+    @Override
+    protected void getTrackBounds(RectF bounds) {
+        float r = Math.max(mRadius + 2, 0);
+        bounds.set(mHalfWidth - r, mHalfHeight - r, mHalfWidth + r, mHalfHeight + r);
+    }
+
+    @Override
+    protected void getHandleBounds(RectF bounds) {
+        float r = mHandleSize/2;
+        bounds.set(
+                mHalfWidth + mHandleX - r, // left
+                mHalfHeight + mHandleY - r, // top
+                mHalfWidth + mHandleX + r, // right
+                mHalfHeight + mHandleY + r // bottom
+        );
     }
 
     @Override
@@ -82,19 +141,22 @@ public class CircleColorPicker extends ColorPicker {
         x -= mHalfWidth;
         y -= mHalfHeight;
 
-        float centerDist = Utils.getDistance(x, y, 0, 0);
+        // squared distance hit tests, no square root unless clamping
+        float centerDistSq = PolarMath.distanceSquared(x, y);
 
         switch (motionAction) {
             case MotionEvent.ACTION_DOWN:
-                mDragging = Utils.getDistance(x, y, mHandleX, mHandleY) < mTouchSize/2;
+                mDragging = PolarMath.isWithin(PolarMath.distanceSquared(x - mHandleX, y - mHandleY), mTouchSize/2);
                 break;
 
             case MotionEvent.ACTION_MOVE:
                 if (mDragging) {
-                    // clamp to circle edge
-                    double angle = Utils.getAngle(0, 0, x, y);
-                    x = (float)Math.cos(angle) * Math.min(centerDist, mRadius);
-                    y = (float)Math.sin(angle) * Math.min(centerDist, mRadius);
+                    // clamp to circle edge, scaling along the same direction
+                    if (!PolarMath.isWithin(centerDistSq, mRadius) && centerDistSq > 0) {
+                        float scale = mRadius / (float)Math.sqrt(centerDistSq);
+                        x *= scale;
+                        y *= scale;
+                    }
                     moveHandleTo(x, y);
                 }
                 break;
@@ -102,7 +164,7 @@ public class CircleColorPicker extends ColorPicker {
             case MotionEvent.ACTION_UP:
                 if (mDragging)
                     mDragging = false;
-                else if (centerDist < mRadius) // animate move if inside bounds
+                else if (PolarMath.isWithin(centerDistSq, mRadius)) // animate move if inside bounds
                     animateHandleTo(x, y);
                 break;
         }
@@ -118,36 +180,45 @@ public class CircleColorPicker extends ColorPicker {
     protected void moveHandleTo(float x, float y) {
         mHandleX = x;
         mHandleY = y;
-        mHue = Utils.getAngleDeg(0, 0, x, y);
-        mSat = Utils.getDistance(0, 0, x, y) / mRadius;
-        int color = ColorUtils.getColorFromHSV(mHue, mSat, mVal);
+        mHue = positionToHue(PolarMath.atan2Deg(y, x));
+        mSat = Math.min((float)Math.sqrt(PolarMath.distanceSquared(x, y)) / mRadius, 1);
+        int color = snapColor(ColorUtils.getColorFromHSV(mHue, mSat, mVal));
 
-        // repaint
+        // repaint around old and new handle position
         mHandlePaint.setColor(color);
-        invalidate();
+        invalidateHandle();
 
         // fire event
-        if (mOnColorChangedListener != null)
-            mOnColorChangedListener.colorChanged(color);
-
-        // set value linear picker if attached
-        if (mValLCP != null)
-            mValLCP.updateHSV(mHue, mSat, mVal);
+        dispatchColorChanged(color);
     }
 
     @Override
     protected void animateHandleTo(float x, float y) {
-        PropertyValuesHolder xHolder = PropertyValuesHolder.ofFloat("x", mHandleX, x);
-        PropertyValuesHolder yHolder = PropertyValuesHolder.ofFloat("y", mHandleY, y);
+        animateHandle(mHandleX, mHandleY, x, y);
+    }
 
-        ValueAnimator anim = ValueAnimator.ofPropertyValuesHolder(xHolder, yHolder);
-        anim.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator val) {
-                moveHandleTo((float)val.getAnimatedValue("x"), (float)val.getAnimatedValue("y"));
-            }
-        });
-        anim.start();
+    @Override
+    protected int getColorModelChannels() {
+        return ColorModel.CHANNEL_HUE | ColorModel.CHANNEL_SATURATION;
+    }
+
+    @Override
+    protected void onColorModelChanged(int channels) {
+        if ((channels & (ColorModel.CHANNEL_HUE | ColorModel.CHANNEL_SATURATION)) != 0) {
+            float position = hueToPosition(mHue);
+            mHandleX = PolarMath.cosDeg(position) * mSat * mRadius;
+            mHandleY = PolarMath.sinDeg(position) * mSat * mRadius;
+        }
+
+        // disc gradients are fixed, only the value overlay changes
+        if ((channels & ColorModel.CHANNEL_VALUE) != 0) {
+            mValuePaint.setAlpha((int)((1 - mVal) * 255));
+            invalidateTrack();
+        } else {
+            invalidate();
+        }
+
+        mHandlePaint.setColor(snapColor(ColorUtils.getColorFromHSV(mHue, mSat, mVal)));
     }
 
     /*
@@ -155,33 +226,36 @@ public class CircleColorPicker extends ColorPicker {
      */
 
     @Override
-    public void setColor(int color) {
-        float hue = ColorUtils.getHueFromColor(color);
-        float sat = ColorUtils.getSaturationFromColor(color);
-        float x = (float)Math.cos(Math.toRadians(hue)) * sat * mRadius;
-        float y = (float)Math.sin(Math.toRadians(hue)) * sat * mRadius;
+    public void setHSV(float hue, float sat, float val) {
+        if (!hasSize()) {
+            jumpToHSV(hue, sat, val); // radius unknown yet, handle is placed in onSizeChanged
+            return;
+        }
+
+        float position = hueToPosition(hue);
+        sat = Utils.clamp(sat, 0, 1);
+        float x = PolarMath.cosDeg(position) * sat * mRadius;
+        float y = PolarMath.sinDeg(position) * sat * mRadius;
 
         // add value
-        mVal = ColorUtils.getValueFromColor(color);
+        mVal = Utils.clamp(val, 0, 1);
         mValuePaint.setAlpha((int) ((1 - mVal) * 255));
+        invalidateTrack();
+        pushToColorModel(ColorModel.CHANNEL_VALUE);
 
         animateHandleTo(x, y);
     }
 
+    /**
+     * Link value picker, both pickers are bound to a shared color model
+     * @see #setColorModel(ColorModel)
+     * @param lcp value picker, null to unlink
+     */
     public void setValueLinearColorPicker(ValueLinearColorPicker lcp) {
+        if (mValLCP != null && mValLCP != lcp && mValLCP.getColorModel() == getColorModel())
+            mValLCP.setColorModel(null);
         mValLCP = lcp;
-        if (mValLCP != null) {
-            mValLCP.updateHSV(mHue, mSat, mVal);
-            mValLCP.setOnColorChangedListener(new OnColorChangedListener() {
-                @Override
-                public void colorChanged(int color) {
-                    mVal = ColorUtils.getValueFromColor(color);
-                    mValuePaint.setAlpha((int) ((1 - mVal) * 255));
-                    mHandlePaint.setColor(color);
-                    invalidate();
-                }
-            });
-        }
-
+        if (mValLCP != null)
+            mValLCP.setColorModel(obtainColorModel());
     }
 }
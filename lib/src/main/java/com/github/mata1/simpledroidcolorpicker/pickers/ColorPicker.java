@@ -1,26 +1,90 @@
 package com.github.mata1.simpledroidcolorpicker.pickers;
 
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
+import android.animation.TimeInterpolator;
+import android.animation.ValueAnimator;
 import android.content.Context;
+import android.content.pm.ApplicationInfo;
 import android.content.res.TypedArray;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
+import android.graphics.Picture;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.os.Build;
+import android.os.Debug;
+import android.os.SystemClock;
 import android.util.AttributeSet;
+import android.view.Choreographer;
 import android.view.MotionEvent;
 import android.view.View;
+import android.view.animation.AccelerateDecelerateInterpolator;
 
 import com.github.mata1.simpledroidcolorpicker.R;
 import com.github.mata1.simpledroidcolorpicker.interfaces.OnColorChangedListener;
+import com.github.mata1.simpledroidcolorpicker.interfaces.OnColorLongChangedListener;
+import com.github.mata1.simpledroidcolorpicker.interfaces.OnColorModelChangedListener;
 import com.github.mata1.simpledroidcolorpicker.interfaces.OnColorPickedListener;
+import com.github.mata1.simpledroidcolorpicker.utils.ColorChangeDispatcher;
+import com.github.mata1.simpledroidcolorpicker.utils.ColorHarmony;
+import com.github.mata1.simpledroidcolorpicker.utils.ColorLongUtils;
+import com.github.mata1.simpledroidcolorpicker.utils.ColorModel;
+import com.github.mata1.simpledroidcolorpicker.utils.ColorSpaceUtils;
 import com.github.mata1.simpledroidcolorpicker.utils.ColorUtils;
+import com.github.mata1.simpledroidcolorpicker.utils.PaletteIndex;
+import com.github.mata1.simpledroidcolorpicker.utils.PickerMetrics;
 import com.github.mata1.simpledroidcolorpicker.utils.Utils;
 
 /**
  * Color picker abstraction class
  */
 public abstract class ColorPicker extends View {
+
+    /**
+     * How touch move samples are turned into color updates
+     */
+    public enum TouchPolicy {
+        /** only the latest sample of each move event is handled */
+        LATEST_ONLY,
+        /** historical samples batched into move events are handled too, for smoother drags */
+        EVERY_SAMPLE,
+        /** move samples are collapsed into a single color update per frame */
+        VSYNC_BATCHED
+    }
+
+    /**
+     * How hues are laid out along the ring, disc or slider
+     */
+    public enum HueMode {
+        /** hues are spaced evenly by HSV hue angle */
+        HSV,
+        /**
+         * hues are spaced evenly by OKLab distance and value sliders by OKLab lightness,
+         * so equal handle moves give equal visible color changes
+         * @see com.github.mata1.simpledroidcolorpicker.utils.ColorSpaceUtils#hsvHueToPerceptualHue(float)
+         */
+        PERCEPTUAL
+    }
+
+    /**
+     * How the static track (ring, disc or slider gradient) is drawn
+     */
+    public enum RenderMode {
+        /** track is drawn every frame */
+        DIRECT,
+        /**
+         * track is recorded once and replayed every frame until its colors or size change: as a picture recorded
+         * into the display list on hardware accelerated canvases (API 23+), as a cached bitmap otherwise
+         */
+        CACHED
+    }
+
     protected OnColorPickedListener mOnColorPickedListener;
     protected OnColorChangedListener mOnColorChangedListener;
+    private ColorChangeDispatcher mColorChangeDispatcher;
 
     protected Paint mColorPaint;
     protected Paint mHandlePaint, mHandleStrokePaint;
@@ -29,11 +93,68 @@ public abstract class ColorPicker extends View {
     protected float mHandleSize, mTouchSize;
 
     protected float mHue, mSat, mVal; // HSV color values
+    protected float mAlpha; // alpha, 0..1, not shown by the handle
+    protected final float[] mHSVBuffer = new float[3]; // scratch buffer for color conversions
+    private int mColorSpace; // color space of color longs
+
+    private ColorModel mColorModel; // shared with linked pickers, may be null
+    private OnColorModelChangedListener mColorModelListener;
+
+    private PaletteIndex mPaletteIndex;
+    private boolean mSnapToPalette; // whether picked colors snap to nearest palette color
+
+    private ColorHarmony.Scheme mHarmonyScheme; // null unless harmony markers are shown
+    private ColorHarmony.Space mHarmonySpace;
+    private Paint mHarmonyPaint;
+    protected final int[] mHarmonyColors = new int[ColorHarmony.MAX_SIZE]; // filled by updateHarmony
+    protected final float[] mHarmonyHues = new float[ColorHarmony.MAX_SIZE];
+    protected final float[] mHarmonySats = new float[ColorHarmony.MAX_SIZE];
+
+    protected HueMode mHueMode;
 
     protected float mHalfWidth, mHalfHeight;
 
     protected boolean mDragging; // whether handle is being dragged
 
+    private ValueAnimator mHandleAnimator; // reused by all handle animations, created on first use
+    private float mAnimFromA, mAnimFromB, mAnimToA, mAnimToB;
+    private boolean mRetargeting; // whether running animation is being replaced
+    private long mAnimationDuration;
+    private TimeInterpolator mAnimationInterpolator;
+
+    private static final long DEFAULT_ANIMATION_DURATION = 300;
+
+    private TouchPolicy mTouchPolicy;
+    private Choreographer.FrameCallback mTouchFrameCallback;
+    private boolean mTouchPending; // whether batched move is waiting for next frame
+    private float mPendingX, mPendingY;
+    private long mPendingEventTime;
+
+    private PickerMetrics mMetrics; // null unless metrics are enabled
+    private int mGestureShaderRebuilds;
+    private long mGestureAllocStart;
+    private boolean mCountingAllocs; // allocation counting started for current gesture
+
+    private RectF mHandleBounds, mDrawnHandleBounds; // handle bounds now and at last draw
+    private Rect mDirtyRect, mFrameDirtyRect; // region to invalidate, region invalidated since last draw
+    private boolean mFullRedraw;
+
+    private boolean mShaderDirty; // whether shaders are rebuilt before next draw
+
+    private RenderMode mRenderMode;
+    private boolean mTrackDirty; // whether cached track is recorded again before next draw
+    private Picture mTrackPicture; // hardware accelerated track cache
+    private Bitmap mTrackBitmap; // software track cache
+    private Canvas mTrackCanvas;
+    private RectF mTrackBounds;
+
+    private static final int PICTURE_HW_API = 23; // first API drawing pictures on hardware canvases
+
+    private boolean mDebugRedraw;
+    private Paint mDebugPaint;
+    private long mLastRedrawArea, mTotalRedrawArea;
+    private int mRedrawCount;
+
     protected static final int[] COLORS = new int[] { 0xFFFF0000, 0xFFFFFF00, 0xFF00FF00, 0xFF00FFFF, 0xFF0000FF, 0xFFFF00FF, 0xFFFF0000 };
 
     public ColorPicker(Context context, AttributeSet attrs) {
@@ -56,6 +177,36 @@ public abstract class ColorPicker extends View {
         mHandleStrokePaint.setStyle(Paint.Style.STROKE);
         mHandleStrokePaint.setColor(mHandleStrokeColor);
         mHandleStrokePaint.setStrokeWidth(4);
+
+        mHarmonyPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        mHarmonySpace = ColorHarmony.Space.HSV;
+
+        mTrackBounds = new RectF();
+
+        mHandleBounds = new RectF();
+        mDrawnHandleBounds = new RectF();
+        mDirtyRect = new Rect();
+        mFrameDirtyRect = new Rect();
+
+        mColorChangeDispatcher = new ColorChangeDispatcher();
+        mColorSpace = ColorLongUtils.EXTENDED_SRGB;
+
+        mAnimationDuration = DEFAULT_ANIMATION_DURATION;
+        mAnimationInterpolator = new AccelerateDecelerateInterpolator();
+
+        mTouchFrameCallback = new Choreographer.FrameCallback() {
+            @Override
+            public void doFrame(long frameTimeNanos) {
+                flushPendingTouch();
+            }
+        };
+
+        mColorModelListener = new OnColorModelChangedListener() {
+            @Override
+            public void colorModelChanged(ColorModel model, int channels) {
+                syncFromColorModel(channels);
+            }
+        };
     }
 
     protected void initAttributes(AttributeSet attrs) {
@@ -66,6 +217,10 @@ public abstract class ColorPicker extends View {
             mHue = Utils.normalizeAngle(a.getFloat(R.styleable.ColorPicker_hue, 0));
             mSat = Utils.clamp(a.getFloat(R.styleable.ColorPicker_saturation, 1), 0, 1);
             mVal = Utils.clamp(a.getFloat(R.styleable.ColorPicker_value, 1), 0, 1);
+            mAlpha = Utils.clamp(a.getFloat(R.styleable.ColorPicker_alpha, 1), 0, 1);
+            mTouchPolicy = TouchPolicy.values()[a.getInt(R.styleable.ColorPicker_touchPolicy, 0)];
+            mHueMode = HueMode.values()[a.getInt(R.styleable.ColorPicker_hueMode, 0)];
+            mRenderMode = RenderMode.values()[a.getInt(R.styleable.ColorPicker_renderMode, 0)];
 
             // TODO add to XML attributes
             mHandleSize = getResources().getDimensionPixelSize(R.dimen.default_handleSize);
@@ -78,29 +233,591 @@ public abstract class ColorPicker extends View {
     @Override
     protected abstract void onDraw(Canvas canvas);
 
+    @Override
+    public void draw(Canvas canvas) {
+        long drawStart = mMetrics != null ? System.nanoTime() : 0;
+
+        // shaders are built on first draw after layout, at most once per frame
+        if (mShaderDirty) {
+            mShaderDirty = false;
+            updateShaders();
+
+            if (mMetrics != null) {
+                mMetrics.record(PickerMetrics.Metric.SHADER_REBUILD_TIME, System.nanoTime() - drawStart);
+                mGestureShaderRebuilds++;
+            }
+        }
+
+        // pickers translate/rotate canvas in onDraw
+        int saveCount = canvas.save();
+        super.draw(canvas);
+        canvas.restoreToCount(saveCount);
+
+        // remember where handle is on screen, so next move invalidates its old position
+        getHandleBounds(mDrawnHandleBounds);
+
+        // redraw area stats
+        mLastRedrawArea = mFullRedraw || mFrameDirtyRect.isEmpty()
+                ? (long)getWidth() * getHeight()
+                : (long)mFrameDirtyRect.width() * mFrameDirtyRect.height();
+        mTotalRedrawArea += mLastRedrawArea;
+        mRedrawCount++;
+
+        if (mDebugRedraw) {
+            if (mFullRedraw || mFrameDirtyRect.isEmpty())
+                canvas.drawRect(0, 0, getWidth(), getHeight(), mDebugPaint);
+            else
+                canvas.drawRect(mFrameDirtyRect, mDebugPaint);
+        }
+
+        mFullRedraw = false;
+        mFrameDirtyRect.setEmpty();
+
+        if (mMetrics != null)
+            mMetrics.record(PickerMetrics.Metric.DRAW_TIME, System.nanoTime() - drawStart);
+    }
+
+    @Override
+    public void invalidate() {
+        super.invalidate();
+        mFullRedraw = true;
+    }
+
+    /**
+     * Rebuild shaders before next draw. Cheaper than building them right away,
+     * since pickers that are never shown build none and repeated changes within a frame build them once
+     */
+    protected void invalidateShader() {
+        mShaderDirty = true;
+        invalidateTrack();
+    }
+
+    /**
+     * Record cached track again before next draw, e.g. after a paint of the track changed.
+     * Shader changes invalidate the track already
+     */
+    protected void invalidateTrack() {
+        mTrackDirty = true;
+        invalidate();
+    }
+
+    /**
+     * Draw static track, e.g. gradient ring, in view coordinates. In cached render mode this is only called
+     * after the track was invalidated, so it must not draw anything that follows the handle
+     * @param canvas canvas to draw on
+     */
+    protected abstract void drawTrack(Canvas canvas);
+
+    /**
+     * Get bounds of everything {@link #drawTrack(Canvas)} draws, sizing the cached track bitmap
+     * @param bounds rect to store bounds in, view coordinates
+     */
+    protected void getTrackBounds(RectF bounds) {
+        bounds.set(0, 0, getWidth(), getHeight());
+    }
+
+    /**
+     * Draw track for current render mode, called by pickers from onDraw before moving the canvas
+     * @param canvas canvas to draw on
+     */
+    protected void renderTrack(Canvas canvas) {
+        if (mRenderMode == RenderMode.DIRECT || isInEditMode()) {
+            drawTrack(canvas);
+            return;
+        }
+
+        getTrackBounds(mTrackBounds);
+        int left = (int)Math.floor(mTrackBounds.left);
+        int top = (int)Math.floor(mTrackBounds.top);
+        int width = (int)Math.ceil(mTrackBounds.right) - left;
+        int height = (int)Math.ceil(mTrackBounds.bottom) - top;
+        if (width <= 0 || height <= 0)
+            return;
+
+        if (canvas.isHardwareAccelerated() && Build.VERSION.SDK_INT >= PICTURE_HW_API) {
+            // recorded ops are replayed by the render thread, nothing is rasterized on the UI thread
+            if (mTrackBitmap != null)
+                releaseTrackCache();
+            if (mTrackDirty || mTrackPicture == null) {
+                if (mTrackPicture == null)
+                    mTrackPicture = new Picture();
+                Canvas recording = mTrackPicture.beginRecording(getWidth(), getHeight());
+                drawTrack(recording);
+                mTrackPicture.endRecording();
+                mTrackDirty = false;
+            }
+            canvas.drawPicture(mTrackPicture);
+        } else {
+            if (mTrackBitmap == null || mTrackBitmap.getWidth() != width || mTrackBitmap.getHeight() != height) {
+                releaseTrackCache();
+                mTrackBitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+                if (mTrackCanvas == null)
+                    mTrackCanvas = new Canvas();
+                mTrackCanvas.setBitmap(mTrackBitmap);
+                mTrackDirty = true;
+            }
+            if (mTrackDirty) {
+                mTrackBitmap.eraseColor(Color.TRANSPARENT);
+                int save = mTrackCanvas.save();
+                mTrackCanvas.translate(-left, -top);
+                drawTrack(mTrackCanvas);
+                mTrackCanvas.restoreToCount(save);
+                mTrackDirty = false;
+            }
+            canvas.drawBitmap(mTrackBitmap, left, top, null);
+        }
+    }
+
+    private void releaseTrackCache() {
+        if (mTrackBitmap != null) {
+            mTrackBitmap.recycle();
+            mTrackBitmap = null;
+        }
+        mTrackPicture = null;
+        mTrackDirty = true;
+    }
+
+    /**
+     * Build shaders for current size and color, called before drawing after {@link #invalidateShader()}
+     */
+    protected void updateShaders() {
+    }
+
+    /**
+     * Get handle bounds in view coordinates, without stroke
+     * @param bounds rect to store bounds in
+     */
+    protected abstract void getHandleBounds(RectF bounds);
+
+    /**
+     * Invalidate only the union of the handle bounds at last draw and at current position
+     */
+    protected void invalidateHandle() {
+        // harmony markers move with handle
+        if (mHarmonyScheme != null) {
+            invalidate();
+            return;
+        }
+
+        getHandleBounds(mHandleBounds);
+        mHandleBounds.union(mDrawnHandleBounds);
+        invalidateRegion(mHandleBounds);
+    }
+
+    /**
+     * Invalidate region, expanded by handle stroke width to cover anti-aliasing
+     * @param region region in view coordinates
+     */
+    protected void invalidateRegion(RectF region) {
+        if (region.isEmpty()) {
+            invalidate();
+            return;
+        }
+
+        float s = mHandleStrokePaint.getStrokeWidth();
+        mDirtyRect.set(
+                (int)Math.floor(region.left - s), // left
+                (int)Math.floor(region.top - s), // top
+                (int)Math.ceil(region.right + s), // right
+                (int)Math.ceil(region.bottom + s) // bottom
+        );
+        mFrameDirtyRect.union(mDirtyRect);
+        invalidate(mDirtyRect);
+    }
+
     @Override
     protected void onSizeChanged(int w, int h, int oldW, int oldH) {
         mHalfWidth = w / 2f;
         mHalfHeight = h / 2f;
+        mTrackDirty = true;
     }
 
     @Override
     public boolean onTouchEvent(MotionEvent event) {
-        int[] location = new int[2];
-        getLocationOnScreen(location);
+        int action = event.getActionMasked();
+        float x = event.getX();
+        float y = event.getY();
+
+        if (action != MotionEvent.ACTION_MOVE) {
+            // deliver batched move before handle is grabbed or released
+            flushPendingTouch();
+            boolean wasDragging = mDragging;
+            if (mMetrics != null && action == MotionEvent.ACTION_DOWN)
+                startGestureMetrics();
+            handleTouch(action, x, y);
+            recordTouchLatency(event.getEventTime());
+
+            // grabbed handle supersedes running animation
+            if (action == MotionEvent.ACTION_DOWN && mDragging)
+                cancelHandleAnimation();
+
+            // handle released and not animating, color is final
+            boolean released = action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL;
+
+            // dragged handle moves onto the palette color it snapped to
+            if (released && wasDragging && isSnapping())
+                setColor(getColor());
+
+            if (released && !isHandleAnimating())
+                mColorChangeDispatcher.settle();
 
-        float x = event.getRawX() - location[0];
-        float y = event.getRawY() - location[1];
+            if (released && mMetrics != null)
+                finishGestureMetrics();
+            return true;
+        }
+
+        switch (mTouchPolicy) {
+            case EVERY_SAMPLE:
+                for (int i = 0; i < event.getHistorySize(); i++)
+                    handleTouch(action, event.getHistoricalX(i), event.getHistoricalY(i));
+                handleTouch(action, x, y);
+                recordTouchLatency(event.getEventTime());
+                break;
+
+            case VSYNC_BATCHED:
+                mPendingX = x;
+                mPendingY = y;
+                mPendingEventTime = event.getEventTime();
+                if (!mTouchPending) {
+                    mTouchPending = true;
+                    Choreographer.getInstance().postFrameCallback(mTouchFrameCallback);
+                }
+                break;
 
-        handleTouch(event.getAction(), x, y);
+            default:
+                handleTouch(action, x, y);
+                recordTouchLatency(event.getEventTime());
+                break;
+        }
         return true;
     }
 
+    /**
+     * Handle move sample waiting for next frame, if any
+     */
+    private void flushPendingTouch() {
+        if (!mTouchPending)
+            return;
+
+        mTouchPending = false;
+        Choreographer.getInstance().removeFrameCallback(mTouchFrameCallback);
+        handleTouch(MotionEvent.ACTION_MOVE, mPendingX, mPendingY);
+        recordTouchLatency(mPendingEventTime);
+    }
+
+    /**
+     * Record time from touch event to now, after the picker handled it
+     * @param eventTime event time in uptime milliseconds
+     */
+    private void recordTouchLatency(long eventTime) {
+        if (mMetrics != null)
+            mMetrics.record(PickerMetrics.Metric.TOUCH_LATENCY, (SystemClock.uptimeMillis() - eventTime) * 1000000);
+    }
+
+    private void startGestureMetrics() {
+        mGestureShaderRebuilds = 0;
+
+        // allocations are only counted while counting is on, which is too costly outside debuggable apps
+        stopAllocCounting();
+        if ((getContext().getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0) {
+            Debug.startAllocCounting();
+            mCountingAllocs = true;
+            mGestureAllocStart = Debug.getThreadAllocCount();
+        }
+    }
+
+    private void finishGestureMetrics() {
+        mMetrics.record(PickerMetrics.Metric.GESTURE_SHADER_REBUILDS, mGestureShaderRebuilds);
+        if (mCountingAllocs)
+            mMetrics.record(PickerMetrics.Metric.GESTURE_ALLOCATIONS, Debug.getThreadAllocCount() - mGestureAllocStart);
+        stopAllocCounting();
+        mMetrics.dispatchGestureFinished();
+    }
+
+    private void stopAllocCounting() {
+        if (mCountingAllocs) {
+            Debug.stopAllocCounting();
+            mCountingAllocs = false;
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        if (mTouchPending) {
+            mTouchPending = false;
+            Choreographer.getInstance().removeFrameCallback(mTouchFrameCallback);
+        }
+        releaseTrackCache();
+        stopAllocCounting(); // gesture may never finish
+    }
+
     protected abstract void handleTouch(int motionAction, float x, float y);
 
+    /**
+     * Deliver color changed event through dispatcher
+     * @param color new color
+     */
+    protected void dispatchColorChanged(int color) {
+        pushToColorModel(getColorModelChannels());
+        color = applyAlpha(color);
+
+        // color long only built when someone listens for it
+        long colorLong = 0;
+        if (mColorChangeDispatcher.getColorLongListener() != null) {
+            colorLong = isSnapping()
+                    ? ColorLongUtils.convert(ColorLongUtils.pack(color), mColorSpace)
+                    : getColorLong();
+        }
+        if (mMetrics != null) {
+            long start = System.nanoTime();
+            mColorChangeDispatcher.colorChanged(color, colorLong);
+            mMetrics.record(PickerMetrics.Metric.LISTENER_TIME, System.nanoTime() - start);
+        } else {
+            mColorChangeDispatcher.colorChanged(color, colorLong);
+        }
+    }
+
+    /**
+     * Replace color alpha with picker alpha
+     * @param color opaque color
+     * @return color with picker alpha
+     */
+    protected int applyAlpha(int color) {
+        return (Math.round(mAlpha * 255) << 24) | (color & 0x00FFFFFF);
+    }
+
+    /**
+     * Get channels the picker handle sets, the picker writes only these to its color model while dragging
+     * @return combination of ColorModel CHANNEL_ flags
+     */
+    protected abstract int getColorModelChannels();
+
+    /**
+     * Write picker color channels to color model, if bound
+     * @param channels channels to write, combination of ColorModel CHANNEL_ flags
+     */
+    protected void pushToColorModel(int channels) {
+        if (mColorModel != null)
+            mColorModel.set(mHue, mSat, mVal, mAlpha, channels);
+    }
+
+    /**
+     * Take color model channels that differ from the picker color
+     * @param channels channels changed in model
+     */
+    private void syncFromColorModel(int channels) {
+        int changed = 0;
+        if ((channels & ColorModel.CHANNEL_HUE) != 0 && mColorModel.getHue() != mHue) {
+            mHue = mColorModel.getHue();
+            changed |= ColorModel.CHANNEL_HUE;
+        }
+        if ((channels & ColorModel.CHANNEL_SATURATION) != 0 && mColorModel.getSaturation() != mSat) {
+            mSat = mColorModel.getSaturation();
+            changed |= ColorModel.CHANNEL_SATURATION;
+        }
+        if ((channels & ColorModel.CHANNEL_VALUE) != 0 && mColorModel.getValue() != mVal) {
+            mVal = mColorModel.getValue();
+            changed |= ColorModel.CHANNEL_VALUE;
+        }
+        if ((channels & ColorModel.CHANNEL_ALPHA) != 0 && mColorModel.getAlpha() != mAlpha) {
+            mAlpha = mColorModel.getAlpha();
+            changed |= ColorModel.CHANNEL_ALPHA;
+        }
+        if (changed == 0)
+            return;
+
+        // handle channel set elsewhere, jump there
+        if ((changed & getColorModelChannels()) != 0)
+            cancelHandleAnimation();
+        onColorModelChanged(changed);
+    }
+
+    /**
+     * Called when linked pickers changed the color model. Picker color is already updated,
+     * pickers reposition handle and rebuild only shaders depending on the changed channels.
+     * Color changed listeners are not called, they report changes made through this picker only
+     * @param channels changed channels, combination of ColorModel CHANNEL_ flags
+     */
+    protected abstract void onColorModelChanged(int channels);
+
+    /**
+     * Get color to show and dispatch for picked color, nearest palette color when snapping
+     * @param color picked color
+     * @return snapped color
+     */
+    protected int snapColor(int color) {
+        return isSnapping() ? mPaletteIndex.getNearestColor(color) : color;
+    }
+
+    private boolean isSnapping() {
+        return mSnapToPalette && mPaletteIndex != null && mPaletteIndex.size() > 0;
+    }
+
     protected abstract void moveHandleTo(float x, float y);
     protected abstract void animateHandleTo(float x, float y);
 
+    /**
+     * Animate handle between two positions. A running animation is retargeted: it is cancelled
+     * and the new one starts from the given position, so animations never stack
+     * @param fromA start of first coordinate
+     * @param fromB start of second coordinate
+     * @param toA end of first coordinate
+     * @param toB end of second coordinate
+     */
+    protected void animateHandle(float fromA, float fromB, float toA, float toB) {
+        if (mHandleAnimator == null) {
+            mHandleAnimator = ValueAnimator.ofFloat(0, 1);
+            mHandleAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+                @Override
+                public void onAnimationUpdate(ValueAnimator animation) {
+                    float f = animation.getAnimatedFraction();
+                    onHandleAnimationUpdate(mAnimFromA + (mAnimToA - mAnimFromA) * f,
+                            mAnimFromB + (mAnimToB - mAnimFromB) * f);
+                }
+            });
+            mHandleAnimator.addListener(new AnimatorListenerAdapter() {
+                @Override
+                public void onAnimationEnd(Animator animation) {
+                    // color is final once the last animation ends
+                    if (!mRetargeting && !mDragging)
+                        mColorChangeDispatcher.settle();
+                }
+            });
+        }
+
+        cancelHandleAnimation();
+
+        mAnimFromA = fromA;
+        mAnimFromB = fromB;
+        mAnimToA = toA;
+        mAnimToB = toB;
+        mHandleAnimator.setDuration(mAnimationDuration);
+        mHandleAnimator.setInterpolator(mAnimationInterpolator);
+        mHandleAnimator.start();
+    }
+
+    /**
+     * Stop running handle animation where it is, without settling color
+     */
+    protected void cancelHandleAnimation() {
+        if (mHandleAnimator != null) {
+            mRetargeting = true;
+            mHandleAnimator.cancel();
+            mRetargeting = false;
+        }
+    }
+
+    /**
+     * Called on every handle animation frame, moves handle by default
+     * @param a first coordinate
+     * @param b second coordinate
+     */
+    protected void onHandleAnimationUpdate(float a, float b) {
+        moveHandleTo(a, b);
+    }
+
+    /**
+     * Get whether picker has been laid out. Handle positions depend on picker size, so colors set before
+     * layout are applied with {@link #jumpToHSV(float, float, float)} instead of animating the handle
+     * @return true if picker has a size
+     */
+    protected boolean hasSize() {
+        return getWidth() > 0 && getHeight() > 0;
+    }
+
+    /**
+     * Set HSV components without animating handle or notifying color changed listeners, e.g. before layout.
+     * Linked pickers are updated through the color model, the handle is placed on next size change
+     * @param hue hue in degrees
+     * @param sat saturation, 0..1
+     * @param val value, 0..1
+     */
+    protected void jumpToHSV(float hue, float sat, float val) {
+        cancelHandleAnimation();
+        mHue = Utils.normalizeAngle(hue);
+        mSat = Utils.clamp(sat, 0, 1);
+        mVal = Utils.clamp(val, 0, 1);
+        pushToColorModel(ColorModel.CHANNELS_HSV);
+        onColorModelChanged(ColorModel.CHANNELS_HSV);
+    }
+
+    /**
+     * Get whether handle is currently animating
+     * @return true if handle animation is running
+     */
+    public boolean isHandleAnimating() {
+        return mHandleAnimator != null && mHandleAnimator.isRunning();
+    }
+
+    /**
+     * Get position of hue along the picker layout, depending on hue mode
+     * @param hue HSV hue in degrees
+     * @return position in degrees, 0..360
+     */
+    protected float hueToPosition(float hue) {
+        return mHueMode == HueMode.PERCEPTUAL ? ColorSpaceUtils.hsvHueToPerceptualHue(hue) : Utils.normalizeAngle(hue);
+    }
+
+    /**
+     * Get hue at position along the picker layout, depending on hue mode
+     * @param position position in degrees
+     * @return HSV hue in degrees, 0..360
+     */
+    protected float positionToHue(float position) {
+        return mHueMode == HueMode.PERCEPTUAL ? ColorSpaceUtils.perceptualHueToHSVHue(position) : Utils.normalizeAngle(position);
+    }
+
+    /**
+     * Called when hue mode changes, pickers rebuild their gradients and reposition handle
+     */
+    protected void onHueModeChanged() {
+        onSizeChanged(getWidth(), getHeight(), getWidth(), getHeight());
+        invalidate();
+    }
+
+    /**
+     * Compute harmony of current color into {@link #mHarmonyColors}, with HSV hues and saturations
+     * of harmony colors in {@link #mHarmonyHues} and {@link #mHarmonySats}. Does not allocate, called on draw
+     * @return number of harmony colors including base color, 0 if harmony markers are off
+     */
+    protected int updateHarmony() {
+        if (mHarmonyScheme == null)
+            return 0;
+
+        int n;
+        if (mHarmonySpace == ColorHarmony.Space.OKLCH) {
+            n = ColorHarmony.generate(ColorUtils.getColorFromHSV(mHue, mSat, mVal), mHarmonyScheme,
+                    mHarmonySpace, mHarmonyColors);
+            mHarmonyHues[0] = mHue;
+            mHarmonySats[0] = mSat;
+            for (int i = 1; i < n; i++) {
+                mHarmonyHues[i] = ColorUtils.getHueFromColor(mHarmonyColors[i]);
+                mHarmonySats[i] = ColorUtils.getSaturationFromColor(mHarmonyColors[i]);
+            }
+        } else {
+            n = ColorHarmony.generate(mHue, mSat, mVal, mHarmonyScheme, mHarmonyColors);
+            ColorHarmony.getHues(mHue, mHarmonyScheme, mHarmonyHues);
+            for (int i = 0; i < n; i++)
+                mHarmonySats[i] = mSat;
+        }
+        return n;
+    }
+
+    /**
+     * Draw harmony marker, a small handle
+     * @param canvas canvas
+     * @param x marker center x
+     * @param y marker center y
+     * @param color harmony color
+     */
+    protected void drawHarmonyMarker(Canvas canvas, float x, float y, int color) {
+        float r = mHandleSize / 4;
+        mHarmonyPaint.setColor(color);
+        canvas.drawCircle(x, y, r, mHarmonyPaint);
+        canvas.drawCircle(x, y, r, mHandleStrokePaint);
+    }
+
     /**
      * Get view maximum padding
      * @return maximum padding
@@ -114,17 +831,212 @@ public abstract class ColorPicker extends View {
      */
 
     /**
-     * Set new picker color
+     * Set new picker color, including alpha
      * @param color new picker color
      */
-    public abstract void setColor(int color);
+    public void setColor(int color) {
+        setColorAlpha((color >>> 24) / 255f);
+        ColorUtils.colorToHSV(color, mHSVBuffer);
+        setHSV(mHSVBuffer[0], mHSVBuffer[1], mHSVBuffer[2]);
+    }
+
+    /**
+     * Set new picker color from color long, without 8-bit quantization.
+     * Colors outside sRGB gamut are clamped to it
+     * @see com.github.mata1.simpledroidcolorpicker.utils.ColorLongUtils
+     * @param color new picker color long
+     */
+    public void setColor(long color) {
+        setColorAlpha(ColorLongUtils.alpha(color));
+        ColorLongUtils.colorLongToHSV(color, mHSVBuffer);
+        setHSV(mHSVBuffer[0], mHSVBuffer[1], mHSVBuffer[2]);
+    }
+
+    /**
+     * Set new picker color from HSV components, kept as they are without 8-bit quantization
+     * @param hue hue in degrees
+     * @param sat saturation, 0..1
+     * @param val value, 0..1
+     */
+    public abstract void setHSV(float hue, float sat, float val);
 
     /**
-     * Get current picker color
+     * Get current picker color as HSV components, without 8-bit quantization
+     * @param hsv output array, length >= 3
+     */
+    public void getHSV(float[] hsv) {
+        hsv[0] = mHue;
+        hsv[1] = mSat;
+        hsv[2] = mVal;
+    }
+
+    /**
+     * Set picker color alpha, kept with the color and applied to picked colors. Unlike {@link #setAlpha(float)},
+     * the view itself stays opaque
+     * @param alpha alpha, 0..1
+     */
+    public void setColorAlpha(float alpha) {
+        mAlpha = Utils.clamp(alpha, 0, 1);
+        pushToColorModel(ColorModel.CHANNEL_ALPHA);
+    }
+
+    /**
+     * Get picker color alpha
+     * @return alpha, 0..1
+     */
+    public float getColorAlpha() {
+        return mAlpha;
+    }
+
+    /**
+     * Get current picker color, including alpha
      * @return current color
      */
     public int getColor() {
-        return mHandlePaint.getColor();
+        return applyAlpha(mHandlePaint.getColor());
+    }
+
+    /**
+     * Get current picker color as color long in current color space, without 8-bit quantization
+     * @see com.github.mata1.simpledroidcolorpicker.utils.ColorLongUtils
+     * @return current color long
+     */
+    public long getColorLong() {
+        return ColorLongUtils.HSVToColorLong(mHue, mSat, mVal, mAlpha, mColorSpace);
+    }
+
+    /**
+     * Set color space of color longs returned and dispatched by the picker.
+     * The picker itself always picks from sRGB gamut
+     * @param colorSpace {@link ColorLongUtils#SRGB}, {@link ColorLongUtils#EXTENDED_SRGB}
+     *                   or {@link ColorLongUtils#DISPLAY_P3}
+     */
+    public void setColorSpace(int colorSpace) {
+        if (colorSpace != ColorLongUtils.SRGB && colorSpace != ColorLongUtils.EXTENDED_SRGB
+                && colorSpace != ColorLongUtils.DISPLAY_P3)
+            throw new IllegalArgumentException("Unsupported color space " + colorSpace);
+        mColorSpace = colorSpace;
+    }
+
+    /**
+     * Get color space of color longs returned and dispatched by the picker
+     * @return color space id
+     */
+    public int getColorSpace() {
+        return mColorSpace;
+    }
+
+    /**
+     * Bind picker to color model shared with other pickers. The picker takes the model color,
+     * and changes made through the picker are written to the model
+     * @param model color model, null to unbind
+     */
+    public void setColorModel(ColorModel model) {
+        if (mColorModel != null)
+            mColorModel.removeListener(mColorModelListener);
+
+        mColorModel = model;
+        if (model != null) {
+            model.addListener(mColorModelListener);
+            syncFromColorModel(ColorModel.CHANNELS_ALL);
+        }
+    }
+
+    /**
+     * Get color model the picker is bound to
+     * @return color model, null if not bound
+     */
+    public ColorModel getColorModel() {
+        return mColorModel;
+    }
+
+    /**
+     * Get color model the picker is bound to, binding it to a new model holding the picker color if needed
+     * @return color model
+     */
+    protected ColorModel obtainColorModel() {
+        if (mColorModel == null)
+            setColorModel(new ColorModel(mHue, mSat, mVal, mAlpha));
+        return mColorModel;
+    }
+
+    /**
+     * Set palette the picker can snap to
+     * @see #setSnapToPalette(boolean)
+     * @param index palette index, may be null
+     */
+    public void setPaletteIndex(PaletteIndex index) {
+        mPaletteIndex = index;
+    }
+
+    /**
+     * Get palette the picker can snap to
+     * @return palette index
+     */
+    public PaletteIndex getPaletteIndex() {
+        return mPaletteIndex;
+    }
+
+    /**
+     * Set whether picked colors snap to the nearest palette color. While dragging, the handle shows
+     * and listeners receive the nearest palette color, on release the handle moves onto it
+     * @param snap true to snap to palette
+     */
+    public void setSnapToPalette(boolean snap) {
+        mSnapToPalette = snap;
+    }
+
+    /**
+     * Get whether picked colors snap to the nearest palette color
+     * @return true if snapping to palette
+     */
+    public boolean isSnapToPalette() {
+        return mSnapToPalette;
+    }
+
+    /**
+     * Set harmony shown as markers next to the handle, only drawn by ring and circle pickers
+     * @param scheme harmony scheme, null to hide markers
+     */
+    public void setHarmonyScheme(ColorHarmony.Scheme scheme) {
+        mHarmonyScheme = scheme;
+        invalidate();
+    }
+
+    /**
+     * Get harmony shown as markers
+     * @return harmony scheme, null if markers are hidden
+     */
+    public ColorHarmony.Scheme getHarmonyScheme() {
+        return mHarmonyScheme;
+    }
+
+    /**
+     * Set color space harmony hues are rotated in
+     * @param space harmony color space
+     */
+    public void setHarmonySpace(ColorHarmony.Space space) {
+        mHarmonySpace = space;
+        invalidate();
+    }
+
+    /**
+     * Get color space harmony hues are rotated in
+     * @return harmony color space
+     */
+    public ColorHarmony.Space getHarmonySpace() {
+        return mHarmonySpace;
+    }
+
+    /**
+     * Get harmony of current color, without allocating
+     * @param colors output colors, base color first, length >= {@link ColorHarmony#MAX_SIZE}
+     * @return number of colors written, 0 if no harmony scheme is set
+     */
+    public int getHarmonyColors(int[] colors) {
+        int n = updateHarmony();
+        System.arraycopy(mHarmonyColors, 0, colors, 0, n);
+        return n;
     }
 
     /**
@@ -145,6 +1057,152 @@ public abstract class ColorPicker extends View {
         return mHandleStrokeColor;
     }
 
+    /**
+     * Set duration of handle animations
+     * @param duration duration in milliseconds
+     */
+    public void setAnimationDuration(long duration) {
+        mAnimationDuration = Math.max(duration, 0);
+    }
+
+    /**
+     * Get duration of handle animations
+     * @return duration in milliseconds
+     */
+    public long getAnimationDuration() {
+        return mAnimationDuration;
+    }
+
+    /**
+     * Set interpolator of handle animations
+     * @param interpolator time interpolator, null for linear
+     */
+    public void setAnimationInterpolator(TimeInterpolator interpolator) {
+        mAnimationInterpolator = interpolator;
+    }
+
+    /**
+     * Get interpolator of handle animations
+     * @return time interpolator
+     */
+    public TimeInterpolator getAnimationInterpolator() {
+        return mAnimationInterpolator;
+    }
+
+    /**
+     * Set how touch move samples are turned into color updates
+     * @param policy touch policy
+     */
+    public void setTouchPolicy(TouchPolicy policy) {
+        flushPendingTouch();
+        mTouchPolicy = policy;
+    }
+
+    /**
+     * Get how touch move samples are turned into color updates
+     * @return current touch policy
+     */
+    public TouchPolicy getTouchPolicy() {
+        return mTouchPolicy;
+    }
+
+    /**
+     * Set how hues are laid out along the picker
+     * @param mode hue mode
+     */
+    public void setHueMode(HueMode mode) {
+        if (mode == mHueMode)
+            return;
+
+        cancelHandleAnimation();
+        mHueMode = mode;
+        onHueModeChanged();
+    }
+
+    /**
+     * Get how hues are laid out along the picker
+     * @return current hue mode
+     */
+    public HueMode getHueMode() {
+        return mHueMode;
+    }
+
+    /**
+     * Set how the static track is drawn
+     * @param mode render mode
+     */
+    public void setRenderMode(RenderMode mode) {
+        mRenderMode = mode;
+        releaseTrackCache();
+        invalidate();
+    }
+
+    /**
+     * Get how the static track is drawn
+     * @return current render mode
+     */
+    public RenderMode getRenderMode() {
+        return mRenderMode;
+    }
+
+    /**
+     * Set metrics the picker records draw times, touch latency, listener times, shader rebuilds
+     * and allocations per gesture into. Disabled by default, costing a null check per event.
+     * Allocations are only recorded in debuggable apps, allocation counting is started for each gesture
+     * @param metrics picker metrics, may be shared by pickers, null to disable
+     */
+    public void setMetrics(PickerMetrics metrics) {
+        mMetrics = metrics;
+        mGestureShaderRebuilds = 0;
+        stopAllocCounting();
+    }
+
+    /**
+     * Get metrics the picker records into
+     * @return picker metrics, null if disabled
+     */
+    public PickerMetrics getMetrics() {
+        return mMetrics;
+    }
+
+    /**
+     * Set whether redrawn regions are outlined, to verify partial invalidation
+     * @param enabled true to draw redraw overlay
+     */
+    public void setDebugRedrawEnabled(boolean enabled) {
+        mDebugRedraw = enabled;
+        if (enabled && mDebugPaint == null) {
+            mDebugPaint = new Paint();
+            mDebugPaint.setStyle(Paint.Style.STROKE);
+            mDebugPaint.setColor(0xFFFF00FF);
+        }
+        invalidate();
+    }
+
+    /**
+     * Get area redrawn in last frame
+     * @return redrawn area in pixels
+     */
+    public long getLastRedrawArea() {
+        return mLastRedrawArea;
+    }
+
+    /**
+     * Get average area redrawn per frame since last reset
+     * @return average redrawn area in pixels
+     */
+    public long getAverageRedrawArea() {
+        return mRedrawCount == 0 ? 0 : mTotalRedrawArea / mRedrawCount;
+    }
+
+    /**
+     * Reset redraw area statistics
+     */
+    public void resetRedrawStats() {
+        mTotalRedrawArea = 0;
+        mRedrawCount = 0;
+    }
+
     /**
      * Set listener for color picked event
      * @see com.github.mata1.simpledroidcolorpicker.interfaces.OnColorPickedListener
@@ -161,6 +1219,25 @@ public abstract class ColorPicker extends View {
      */
     public void setOnColorChangedListener(OnColorChangedListener eventListener) {
         mOnColorChangedListener = eventListener;
+        mColorChangeDispatcher.setListener(eventListener);
+    }
+
+    /**
+     * Set listener for color changed event delivering color longs, see {@link #setColorSpace(int)}
+     * @see com.github.mata1.simpledroidcolorpicker.interfaces.OnColorLongChangedListener
+     * @param eventListener OnColorLongChangedListener event listener
+     */
+    public void setOnColorLongChangedListener(OnColorLongChangedListener eventListener) {
+        mColorChangeDispatcher.setColorLongListener(eventListener);
+    }
+
+    /**
+     * Get dispatcher delivering color changed events, to rate limit them for expensive listeners
+     * @see com.github.mata1.simpledroidcolorpicker.utils.ColorChangeDispatcher
+     * @return color changed event dispatcher
+     */
+    public ColorChangeDispatcher getColorChangeDispatcher() {
+        return mColorChangeDispatcher;
     }
 
 
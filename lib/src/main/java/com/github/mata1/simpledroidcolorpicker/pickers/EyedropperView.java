@@ -0,0 +1,306 @@
+package com.github.mata1.simpledroidcolorpicker.pickers;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.os.AsyncTask;
+import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.View;
+
+import com.github.mata1.simpledroidcolorpicker.R;
+import com.github.mata1.simpledroidcolorpicker.interfaces.OnColorChangedListener;
+import com.github.mata1.simpledroidcolorpicker.interfaces.OnColorPickedListener;
+import com.github.mata1.simpledroidcolorpicker.utils.ImageSampler;
+import com.github.mata1.simpledroidcolorpicker.utils.RegionDecoderPixelSource;
+import com.github.mata1.simpledroidcolorpicker.utils.Utils;
+
+import java.util.concurrent.Future;
+
+/**
+ * Eyedropper picking colors from an image. Only a subsampled preview is shown, colors are sampled
+ * from full resolution regions in the background and fed to a linked color picker
+ */
+public class EyedropperView extends View {
+
+    private OnColorChangedListener mOnColorChangedListener;
+    private OnColorPickedListener mOnColorPickedListener;
+    private ColorPicker mColorPicker;
+
+    private RegionDecoderPixelSource mSource;
+    private ImageSampler mSampler;
+    private Future<?> mPendingSample;
+    private Bitmap mPreview;
+
+    private int mKernelRadius; // in image pixels
+    private ImageSampler.Mode mSampleMode;
+
+    private Paint mPreviewPaint, mReticlePaint, mReticleStrokePaint;
+    private RectF mImageRect; // preview bounds in view
+    private float mReticleX, mReticleY, mReticleSize;
+    private boolean mReticleVisible;
+    private int mColor;
+
+    private int mRequestId; // id of latest sample request
+    private int mPickRequestId = -1; // request whose sample is picked on release, -1 if none
+
+    private static final int DEFAULT_KERNEL_RADIUS = 2;
+
+    public EyedropperView(Context context) {
+        this(context, null);
+    }
+
+    public EyedropperView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        init();
+    }
+
+    private void init() {
+        mKernelRadius = DEFAULT_KERNEL_RADIUS;
+        mSampleMode = ImageSampler.Mode.AVERAGE;
+
+        mPreviewPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+        mReticlePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        mReticleStrokePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        mReticleStrokePaint.setStyle(Paint.Style.STROKE);
+        mReticleStrokePaint.setStrokeWidth(4);
+        mReticleStrokePaint.setColor(Color.WHITE);
+        mReticleSize = getResources().getDimensionPixelSize(R.dimen.default_handleSize);
+
+        mImageRect = new RectF();
+    }
+
+    /**
+     * Set image to pick colors from, the preview is decoded in the background
+     * @param source image source, released with the view, null to clear
+     */
+    public void setImageSource(RegionDecoderPixelSource source) {
+        release();
+        if (source == null)
+            return;
+
+        mSource = source;
+        mSampler = new ImageSampler(source);
+
+        // decode preview sized for this view, off the main thread
+        final RegionDecoderPixelSource decoding = source;
+        final int w = Math.max(getWidth(), getResources().getDisplayMetrics().widthPixels / 2);
+        final int h = Math.max(getHeight(), getResources().getDisplayMetrics().heightPixels / 2);
+        AsyncTask.THREAD_POOL_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                final Bitmap preview = decoding.decodePreview(w, h);
+                post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (mSource == decoding) {
+                            mPreview = preview;
+                            updateImageRect();
+                            invalidate();
+                        } else if (preview != null) {
+                            preview.recycle(); // image changed meanwhile
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Stop sampling and release image memory. The image source is recycled once background decodes finish
+     */
+    public void release() {
+        if (mSampler != null)
+            mSampler.close();
+        if (mSource != null)
+            mSource.recycle();
+        if (mPreview != null)
+            mPreview.recycle();
+        mSampler = null;
+        mSource = null;
+        mPreview = null;
+        mPendingSample = null;
+        mPickRequestId = -1;
+        mReticleVisible = false;
+        invalidate();
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldW, int oldH) {
+        updateImageRect();
+    }
+
+    /**
+     * Fit preview into view, keeping image aspect ratio
+     */
+    private void updateImageRect() {
+        if (mSource == null)
+            return;
+
+        float availW = getWidth() - getPaddingLeft() - getPaddingRight();
+        float availH = getHeight() - getPaddingTop() - getPaddingBottom();
+        float scale = Math.min(availW / mSource.getWidth(), availH / mSource.getHeight());
+        float w = mSource.getWidth() * scale;
+        float h = mSource.getHeight() * scale;
+        float left = getPaddingLeft() + (availW - w) / 2;
+        float top = getPaddingTop() + (availH - h) / 2;
+        mImageRect.set(left, top, left + w, top + h);
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        if (mPreview != null)
+            canvas.drawBitmap(mPreview, null, mImageRect, mPreviewPaint);
+
+        if (mReticleVisible) {
+            canvas.drawCircle(mReticleX, mReticleY, mReticleSize / 2, mReticlePaint);
+            canvas.drawCircle(mReticleX, mReticleY, mReticleSize / 2, mReticleStrokePaint);
+        }
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (mSampler == null || mImageRect.isEmpty())
+            return false;
+
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+            case MotionEvent.ACTION_MOVE:
+                mPickRequestId = -1;
+                sampleAt(event.getX(), event.getY());
+                break;
+
+            case MotionEvent.ACTION_UP:
+                // pick once the sample of this request arrives, not an older one already posted
+                mPickRequestId = sampleAt(event.getX(), event.getY());
+                break;
+
+            case MotionEvent.ACTION_CANCEL:
+                mPickRequestId = -1;
+                if (mPendingSample != null)
+                    mPendingSample.cancel(true);
+                mReticleVisible = false;
+                invalidate();
+                break;
+        }
+        return true;
+    }
+
+    /**
+     * Request sample under reticle moved to view position
+     * @return request id, passed to {@link #onColorSampled(int, int)}
+     */
+    private int sampleAt(float x, float y) {
+        mReticleX = Utils.clamp(x, mImageRect.left, mImageRect.right);
+        mReticleY = Utils.clamp(y, mImageRect.top, mImageRect.bottom);
+        mReticleVisible = true;
+        invalidate();
+
+        // map to image pixels, previous request is cancelled
+        float scale = mSource.getWidth() / mImageRect.width();
+        int ix = (int)Math.min((mReticleX - mImageRect.left) * scale, mSource.getWidth() - 1);
+        int iy = (int)Math.min((mReticleY - mImageRect.top) * scale, mSource.getHeight() - 1);
+        final ImageSampler sampler = mSampler;
+        final int id = ++mRequestId;
+        mPendingSample = sampler.sample(ix, iy, mKernelRadius, mSampleMode, new ImageSampler.Callback() {
+            @Override
+            public void colorSampled(int x, int y, final int color) {
+                post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (mSampler == sampler)
+                            onColorSampled(color, id);
+                    }
+                });
+            }
+        });
+        return id;
+    }
+
+    private void onColorSampled(int color, int id) {
+        mColor = color;
+        mReticlePaint.setColor(color);
+        invalidate();
+
+        if (mColorPicker != null)
+            mColorPicker.setColor(color);
+        if (mOnColorChangedListener != null)
+            mOnColorChangedListener.colorChanged(color);
+
+        if (id == mPickRequestId) {
+            mPickRequestId = -1;
+            if (mOnColorPickedListener != null)
+                mOnColorPickedListener.colorPicked(color);
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        if (mPendingSample != null)
+            mPendingSample.cancel(true);
+    }
+
+    /*
+    SETTERS/GETTERS
+     */
+
+    /**
+     * Set color picker receiving sampled colors
+     * @param picker color picker, may be null
+     */
+    public void setColorPicker(ColorPicker picker) {
+        mColorPicker = picker;
+    }
+
+    /**
+     * Set sampling kernel radius, the kernel is a (2 * radius + 1) square of image pixels
+     * @param radius kernel radius in image pixels, 0 for single pixel
+     */
+    public void setKernelRadius(int radius) {
+        mKernelRadius = Math.max(radius, 0);
+    }
+
+    public int getKernelRadius() {
+        return mKernelRadius;
+    }
+
+    /**
+     * Set how kernel pixels are combined into the sampled color
+     * @param mode sampling mode
+     */
+    public void setSampleMode(ImageSampler.Mode mode) {
+        mSampleMode = mode;
+    }
+
+    public ImageSampler.Mode getSampleMode() {
+        return mSampleMode;
+    }
+
+    /**
+     * Get last sampled color
+     * @return sampled color
+     */
+    public int getColor() {
+        return mColor;
+    }
+
+    /**
+     * Set listener for sampled color event, called while dragging
+     * @param eventListener OnColorChangedListener event listener
+     */
+    public void setOnColorChangedListener(OnColorChangedListener eventListener) {
+        mOnColorChangedListener = eventListener;
+    }
+
+    /**
+     * Set listener for color picked event, called with the color under the finger on release
+     * @param eventListener OnColorPickedListener event listener
+     */
+    public void setOnColorPickedListener(OnColorPickedListener eventListener) {
+        mOnColorPickedListener = eventListener;
+    }
+}
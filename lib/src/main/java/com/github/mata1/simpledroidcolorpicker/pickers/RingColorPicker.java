@@ -1,6 +1,5 @@
 package com.github.mata1.simpledroidcolorpicker.pickers;
 
-import android.animation.ValueAnimator;
 import android.content.Context;
 import android.content.res.TypedArray;
 import android.graphics.Canvas;
@@ -13,10 +12,12 @@ import android.view.MotionEvent;
 import android.view.SoundEffectConstants;
 
 import com.github.mata1.simpledroidcolorpicker.R;
-import com.github.mata1.simpledroidcolorpicker.interfaces.OnColorChangedListener;
 import com.github.mata1.simpledroidcolorpicker.pickers.linear.SaturationLinearColorPicker;
 import com.github.mata1.simpledroidcolorpicker.pickers.linear.ValueLinearColorPicker;
+import com.github.mata1.simpledroidcolorpicker.utils.ColorModel;
 import com.github.mata1.simpledroidcolorpicker.utils.ColorUtils;
+import com.github.mata1.simpledroidcolorpicker.utils.HueShaderCache;
+import com.github.mata1.simpledroidcolorpicker.utils.PolarMath;
 import com.github.mata1.simpledroidcolorpicker.utils.Utils;
 
 /**
@@ -27,6 +28,7 @@ public class RingColorPicker extends ColorPicker {
     private Paint mInnerPaint;
 
     private RectF mHandleRect;
+    private RectF mInnerRect; // inner circle bounds, repainted with handle
 
     private ValueLinearColorPicker mValLCP;
     private SaturationLinearColorPicker mSatLCP;
@@ -52,17 +54,17 @@ public class RingColorPicker extends ColorPicker {
         super.init();
 
         mHandleRect = new RectF();
+        mInnerRect = new RectF();
 
         // init paints
         mColorPaint.setStyle(Paint.Style.STROKE);
         mColorPaint.setStrokeWidth(mRingWidth);
-        mColorPaint.setShader(new SweepGradient(0, 0, ColorUtils.getHueRingColors(7, mSat, mVal), null));
+        invalidateShader();
 
         mInnerPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
         mInnerPaint.setColor(getColor());
 
         if (isInEditMode()) {
-            mColorPaint.setShader(new SweepGradient(0, 0, COLORS, null));
             mInnerPaint.setColor(Color.RED);
             mHandlePaint.setColor(Color.RED);
         }
@@ -99,42 +101,87 @@ public class RingColorPicker extends ColorPicker {
                 mOuterRadius + mColorPaint.getStrokeWidth()/2 + HANDLE_PADDING - s, // right
                 mHandleSize/2 // bottom
         );
+
+        mInnerRect.set(mHalfWidth - mInnerRadius, mHalfHeight - mInnerRadius,
+                mHalfWidth + mInnerRadius, mHalfHeight + mInnerRadius);
     }
 
     @Override
     protected void onDraw(Canvas canvas) {
-        canvas.translate(mHalfWidth, mHalfHeight);
         // outer ring
-        canvas.drawCircle(0, 0, mOuterRadius, mColorPaint);
+        renderTrack(canvas);
 
+        canvas.translate(mHalfWidth, mHalfHeight);
         // inner circle
         canvas.drawCircle(0, 0, mInnerRadius, mInnerPaint);
 
+        // harmony markers on ring
+        int harmonies = updateHarmony();
+        for (int i = 1; i < harmonies; i++) {
+            float position = hueToPosition(mHarmonyHues[i]);
+            drawHarmonyMarker(canvas, PolarMath.cosDeg(position) * mOuterRadius,
+                    PolarMath.sinDeg(position) * mOuterRadius, mHarmonyColors[i]);
+        }
+
         // rotate handle
-        canvas.rotate(mHue);
+        canvas.rotate(hueToPosition(mHue));
         canvas.drawRoundRect(mHandleRect, HANDLE_EDGE_RADIUS, HANDLE_EDGE_RADIUS, mHandlePaint);
         canvas.drawRoundRect(mHandleRect, HANDLE_EDGE_RADIUS, HANDLE_EDGE_RADIUS, mHandleStrokePaint);
     }
 
+    @Override
+    protected void drawTrack(Canvas canvas) {
+        // sweep shader is centered at origin
+        int save = canvas.save();
+        canvas.translate(mHalfWidth, mHalfHeight);
+        canvas.drawCircle(0, 0, mOuterRadius, mColorPaint);
+        canvas.restoreToCount(save);
+    }
+
+    @Override
+    protected void getTrackBounds(RectF bounds) {
+        float r = mOuterRadius + mColorPaint.getStrokeWidth()/2 + 1;
+        bounds.set(mHalfWidth - r, mHalfHeight - r, mHalfWidth + r, mHalfHeight + r);
+    }
+
+    @Override
+    protected void getHandleBounds(RectF bounds) {
+        // bounding box of handle rect rotated around center
+        float position = hueToPosition(mHue);
+        float cos = PolarMath.cosDeg(position);
+        float sin = PolarMath.sinDeg(position);
+
+        bounds.set(Float.MAX_VALUE, Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE);
+        for (int i = 0; i < 4; i++) {
+            float x = i < 2 ? mHandleRect.left : mHandleRect.right;
+            float y = i % 2 == 0 ? mHandleRect.top : mHandleRect.bottom;
+            float rx = mHalfWidth + x * cos - y * sin;
+            float ry = mHalfHeight + x * sin + y * cos;
+            bounds.left = Math.min(bounds.left, rx);
+            bounds.top = Math.min(bounds.top, ry);
+            bounds.right = Math.max(bounds.right, rx);
+            bounds.bottom = Math.max(bounds.bottom, ry);
+        }
+    }
+
     @Override
     protected void handleTouch(int motionAction, float x, float y) {
         // set origin to center
         x -= mHalfWidth;
         y -= mHalfHeight;
 
-        float dist = Utils.getDistance(0, 0, x, y);
+        // squared distance hit tests, no square root per move
+        float distSq = PolarMath.distanceSquared(x, y);
 
-        boolean isTouchingRing = dist > mInnerRadius + mGapWidth - HANDLE_PADDING
-                && dist < mOuterRadius + mColorPaint.getStrokeWidth()/2 + HANDLE_PADDING;
-        boolean isTouchingCenter = dist < mInnerRadius;
+        boolean isTouchingRing = PolarMath.isWithinRing(distSq, mInnerRadius + mGapWidth - HANDLE_PADDING,
+                mOuterRadius + mColorPaint.getStrokeWidth()/2 + HANDLE_PADDING);
+        boolean isTouchingCenter = PolarMath.isWithin(distSq, mInnerRadius);
 
         switch (motionAction) {
             case MotionEvent.ACTION_DOWN:
-                // check if touching handle
-                float angle = Utils.normalizeAngle(Utils.getAngleDeg(0, 0, x, y));
-                float absDiff = Math.abs(angle - mHue);
-                absDiff = absDiff > 180 ? 360 - absDiff : absDiff;
-                float touchDist = (float)Math.toRadians(absDiff) * dist;
+                // check if touching handle, by arc length from handle
+                float absDiff = PolarMath.angleDifference(PolarMath.atan2Deg(y, x), hueToPosition(mHue));
+                float touchDist = PolarMath.arcLength(absDiff, (float)Math.sqrt(distSq));
                 mDragging = touchDist < mTouchSize/2 && isTouchingRing;
                 break;
 
@@ -168,52 +215,81 @@ public class RingColorPicker extends ColorPicker {
 
     @Override
     protected void moveHandleTo(float x, float y) {
-        float angle = Utils.normalizeAngle(Utils.getAngleDeg(0, 0, x, y));
-        moveHandleTo(angle);
+        moveHandleTo(PolarMath.atan2Deg(y, x));
     }
 
+    /**
+     * Move handle to angle along the ring
+     * @param angle handle angle in degrees, mapped to hue by hue mode
+     */
     private void moveHandleTo(float angle) {
-        mHue = Utils.normalizeAngle(angle);
-        int color = ColorUtils.getColorFromHSV(mHue, mSat, mVal);
+        mHue = positionToHue(Utils.normalizeAngle(angle));
+        int color = snapColor(ColorUtils.getColorFromHSV(mHue, mSat, mVal));
 
-        // repaint
+        // repaint handle and inner circle only
         mInnerPaint.setColor(color);
         mHandlePaint.setColor(color);
-        invalidate();
+        invalidateHandle();
+        invalidateRegion(mInnerRect);
 
         // fire event
-        if (mOnColorChangedListener != null)
-            mOnColorChangedListener.colorChanged(color);
-
-        // set linear pickers if attached
-        if (mSatLCP != null)
-            mSatLCP.updateHSV(mHue, mSat, mVal);
-        if (mValLCP != null)
-            mValLCP.updateHSV(mHue, mSat, mVal);
+        dispatchColorChanged(color);
     }
 
     @Override
     protected void animateHandleTo(float x, float y) {
-        float angle = Utils.normalizeAngle(Utils.getAngleDeg(0, 0, x, y));
-        animateHandleTo(angle);
+        animateHandleTo(PolarMath.atan2Deg(y, x));
     }
 
+    /**
+     * Animate handle to angle along the ring, the shorter way around
+     * @param angle handle angle in degrees
+     */
     private void animateHandleTo(float angle) {
-        float diff = mHue - angle;
+        float from = hueToPosition(mHue);
+        float diff = from - angle;
 
         // correct angles
         if (diff < -180) diff += 360;
         else if (diff > 180) diff -= 360;
 
         // start animating
-        ValueAnimator anim = ValueAnimator.ofFloat(mHue, mHue - diff);
-        anim.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator animation) {
-                moveHandleTo((float) animation.getAnimatedValue());
-            }
-        });
-        anim.start();
+        animateHandle(from, 0, from - diff, 0);
+    }
+
+    @Override
+    protected void onHandleAnimationUpdate(float angle, float unused) {
+        moveHandleTo(angle);
+    }
+
+    @Override
+    protected int getColorModelChannels() {
+        return ColorModel.CHANNEL_HUE;
+    }
+
+    @Override
+    protected void onColorModelChanged(int channels) {
+        // ring gradient shows saturation and value
+        if ((channels & (ColorModel.CHANNEL_SATURATION | ColorModel.CHANNEL_VALUE)) != 0)
+            invalidateShader();
+
+        int color = snapColor(ColorUtils.getColorFromHSV(mHue, mSat, mVal));
+        mHandlePaint.setColor(color);
+        mInnerPaint.setColor(color);
+        invalidate();
+    }
+
+    @Override
+    protected void onHueModeChanged() {
+        invalidateShader();
+    }
+
+    @Override
+    protected void updateShaders() {
+        if (isInEditMode())
+            mColorPaint.setShader(new SweepGradient(0, 0, COLORS, null));
+        else
+            mColorPaint.setShader(HueShaderCache.getInstance().getSweepGradient(mSat, mVal, mHueMode == HueMode.PERCEPTUAL));
     }
 
     /*
@@ -221,12 +297,17 @@ public class RingColorPicker extends ColorPicker {
      */
 
     @Override
-    public void setColor(int color) {
-        float angle = ColorUtils.getHueFromColor(color);
-        mSat = ColorUtils.getSaturationFromColor(color);
-        mVal = ColorUtils.getValueFromColor(color);
-        mColorPaint.setShader(new SweepGradient(0, 0, ColorUtils.getHueRingColors(7, mSat, mVal), null));
-        animateHandleTo(angle);
+    public void setHSV(float hue, float sat, float val) {
+        if (!hasSize()) {
+            jumpToHSV(hue, sat, val);
+            return;
+        }
+
+        mSat = Utils.clamp(sat, 0, 1);
+        mVal = Utils.clamp(val, 0, 1);
+        invalidateShader();
+        pushToColorModel(ColorModel.CHANNEL_SATURATION | ColorModel.CHANNEL_VALUE);
+        animateHandleTo(hueToPosition(hue));
     }
 
     /**
@@ -268,41 +349,29 @@ public class RingColorPicker extends ColorPicker {
         return mGapWidth;
     }
 
+    /**
+     * Link saturation picker, both pickers are bound to a shared color model
+     * @see #setColorModel(ColorModel)
+     * @param lcp saturation picker, null to unlink
+     */
     public void setSaturationLinearColorPicker(SaturationLinearColorPicker lcp) {
-        mSatLCP = lcp;
-        if (mSatLCP != null) {
-            mSatLCP.updateHSV(mHue, mSat, mVal);
-            mSatLCP.setOnColorChangedListener(new OnColorChangedListener() {
-                @Override
-                public void colorChanged(int color) {
-                    mSat = ColorUtils.getSaturationFromColor(color);
-                    mColorPaint.setShader(new SweepGradient(0, 0, ColorUtils.getHueRingColors(7, mSat, mVal), null));
-                    mHandlePaint.setColor(color);
-                    mInnerPaint.setColor(color);
-                    if (mValLCP != null)
-                        mValLCP.updateHSV(mHue, mSat, mVal);
-                    invalidate();
-                }
-            });
-        }
+        mSatLCP = linkPicker(mSatLCP, lcp);
     }
 
+    /**
+     * Link value picker, both pickers are bound to a shared color model
+     * @see #setColorModel(ColorModel)
+     * @param lcp value picker, null to unlink
+     */
     public void setValueLinearColorPicker(ValueLinearColorPicker lcp) {
-        mValLCP = lcp;
-        if (mValLCP != null) {
-            mValLCP.updateHSV(mHue, mSat, mVal);
-            mValLCP.setOnColorChangedListener(new OnColorChangedListener() {
-                @Override
-                public void colorChanged(int color) {
-                    mVal = ColorUtils.getValueFromColor(color);
-                    mColorPaint.setShader(new SweepGradient(0, 0, ColorUtils.getHueRingColors(7, mSat, mVal), null));
-                    mHandlePaint.setColor(color);
-                    mInnerPaint.setColor(color);
-                    if (mSatLCP != null)
-                        mSatLCP.updateHSV(mHue, mSat, mVal);
-                    invalidate();
-                }
-            });
-        }
+        mValLCP = linkPicker(mValLCP, lcp);
+    }
+
+    private <T extends ColorPicker> T linkPicker(T oldPicker, T newPicker) {
+        if (oldPicker != null && oldPicker != newPicker && oldPicker.getColorModel() == getColorModel())
+            oldPicker.setColorModel(null);
+        if (newPicker != null)
+            newPicker.setColorModel(obtainColorModel());
+        return newPicker;
     }
 }
@@ -0,0 +1,130 @@
+package com.github.mata1.simpledroidcolorpicker.pickers.linear;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapShader;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.LinearGradient;
+import android.graphics.Paint;
+import android.graphics.Shader;
+import android.util.AttributeSet;
+
+import com.github.mata1.simpledroidcolorpicker.R;
+import com.github.mata1.simpledroidcolorpicker.utils.ColorModel;
+import com.github.mata1.simpledroidcolorpicker.utils.ColorUtils;
+import com.github.mata1.simpledroidcolorpicker.utils.Utils;
+
+/**
+ * Alpha Linear Color Picker View, gradient from transparent to opaque current color over a checkerboard
+ */
+public class AlphaLinearColorPicker extends LinearColorPicker {
+
+    private static final int CHECKER_LIGHT = 0xFFFFFFFF;
+    private static final int CHECKER_DARK = 0xFFCCCCCC;
+
+    // checkerboard tile shared by all instances, 2x2 squares repeated by the shader
+    private static Bitmap sCheckerTile;
+
+    private Paint mCheckerPaint;
+
+    public AlphaLinearColorPicker(Context context, AttributeSet attrs) {
+        super(context, attrs);
+    }
+
+    public AlphaLinearColorPicker(Context context, AttributeSet attrs, int defStyle) {
+        super(context, attrs, defStyle);
+    }
+
+    @Override
+    protected void init() {
+        super.init();
+
+        mCheckerPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    }
+
+    @Override
+    protected void updateShaders() {
+        super.updateShaders();
+
+        // checkerboard never changes, only the gradient over it
+        if (mCheckerPaint.getShader() == null) {
+            Bitmap tile = getCheckerTile(getResources().getDimensionPixelSize(R.dimen.default_checkerSize));
+            mCheckerPaint.setShader(new BitmapShader(tile, Shader.TileMode.REPEAT, Shader.TileMode.REPEAT));
+        }
+    }
+
+    /**
+     * Get checkerboard tile, rendered once
+     * @param squareSize checker square size in pixels
+     * @return tile of 2x2 checker squares
+     */
+    private static Bitmap getCheckerTile(int squareSize) {
+        squareSize = Math.max(squareSize, 1);
+        if (sCheckerTile == null || sCheckerTile.getWidth() != squareSize * 2) {
+            Bitmap tile = Bitmap.createBitmap(squareSize * 2, squareSize * 2, Bitmap.Config.ARGB_8888);
+            tile.eraseColor(CHECKER_LIGHT);
+            Canvas canvas = new Canvas(tile);
+            Paint paint = new Paint();
+            paint.setColor(CHECKER_DARK);
+            canvas.drawRect(0, 0, squareSize, squareSize, paint);
+            canvas.drawRect(squareSize, squareSize, squareSize * 2, squareSize * 2, paint);
+            sCheckerTile = tile;
+        }
+        return sCheckerTile;
+    }
+
+    @Override
+    protected void drawTrack(Canvas canvas) {
+        // checkerboard under gradient, filled from cached tile
+        canvas.drawRoundRect(mRect, RECT_EDGE_RADIUS, RECT_EDGE_RADIUS, mCheckerPaint);
+
+        super.drawTrack(canvas);
+    }
+
+    @Override
+    protected Shader createGradient() {
+        int color = ColorUtils.getColorFromHSV(mHue, mSat, mVal);
+        return new LinearGradient(mRect.left, mRect.centerY(), mRect.right, mRect.centerY(),
+                color & 0x00FFFFFF, color, LinearGradient.TileMode.CLAMP);
+    }
+
+    @Override
+    protected Shader createFakeGradient() {
+        return new LinearGradient(mRect.left, mRect.centerY(), mRect.right, mRect.centerY(),
+                Color.TRANSPARENT, Color.RED, LinearGradient.TileMode.CLAMP);
+    }
+
+    @Override
+    protected int getColorModelChannels() {
+        return ColorModel.CHANNEL_ALPHA;
+    }
+
+    @Override
+    protected float getMinFraction() {
+        return 0; // fully transparent is a valid pick
+    }
+
+    @Override
+    protected void setColorFromFraction(float fraction) {
+        mAlpha = Utils.clamp(fraction, 0, 1);
+    }
+
+    @Override
+    protected float getFractionFromColor() {
+        return mAlpha;
+    }
+
+    /*
+    SETTERS/GETTERS
+     */
+
+    @Override
+    public void setColorAlpha(float alpha) {
+        super.setColorAlpha(alpha);
+        if (hasSize())
+            animateHandleTo(mAlpha * mRect.width() + mRect.left, 0);
+        else
+            onColorModelChanged(ColorModel.CHANNEL_ALPHA); // handle is placed in onSizeChanged
+    }
+}
@@ -2,25 +2,44 @@ package com.github.mata1.simpledroidcolorpicker.pickers.linear;
 
 import android.content.Context;
 import android.util.AttributeSet;
-import android.view.View;
+import android.util.TypedValue;
+import android.view.ViewGroup;
 import android.widget.LinearLayout;
 
-import com.github.mata1.simpledroidcolorpicker.R;
 import com.github.mata1.simpledroidcolorpicker.interfaces.OnColorChangedListener;
+import com.github.mata1.simpledroidcolorpicker.interfaces.OnColorLongChangedListener;
+import com.github.mata1.simpledroidcolorpicker.pickers.ColorPicker;
+import com.github.mata1.simpledroidcolorpicker.utils.ColorChangeDispatcher;
+import com.github.mata1.simpledroidcolorpicker.utils.ColorLongUtils;
+import com.github.mata1.simpledroidcolorpicker.utils.ColorModel;
 import com.github.mata1.simpledroidcolorpicker.utils.ColorUtils;
 
 /**
- * HSV Linear color picker consisting of three linear color pickers
+ * HSV Linear color picker consisting of three linear color pickers, stacked vertically.
+ * Child pickers are built in code, without layout inflation, and share one color model
  */
 public class HSVLinearColorPicker extends LinearLayout {
 
-    private OnColorChangedListener mOnColorChangedListener;
+    private ColorChangeDispatcher mColorChangeDispatcher;
 
     private HueLinearColorPicker mHueLCP;
     private SaturationLinearColorPicker mSatLCP;
     private ValueLinearColorPicker mValLCP;
+    private AlphaLinearColorPicker mAlphaLCP; // only when alpha picker is enabled
 
-    private float mHue, mSat, mVal;
+    private Runnable mChildSettledCallback;
+    private OnColorChangedListener mChildListener;
+
+    private ColorModel mColorModel;
+    private int mColorSpace; // color space of color longs
+    private ColorPicker.RenderMode mRenderMode;
+    private final float[] mHSVBuffer = new float[3]; // scratch buffer for color conversions
+
+    private static final int CHILD_PADDING = 5; // dp
+
+    public HSVLinearColorPicker(Context context) {
+        this(context, null);
+    }
 
     public HSVLinearColorPicker(Context context, AttributeSet attrs) {
         this(context, attrs, 0);
@@ -33,54 +52,233 @@ public class HSVLinearColorPicker extends LinearLayout {
     }
 
     private void init() {
-        View v = inflate(getContext(), R.layout.hsv_color_picker, this);
+        setOrientation(VERTICAL);
 
-        mHue = 0;
-        mSat = 1;
-        mVal = 1;
+        mColorSpace = ColorLongUtils.EXTENDED_SRGB;
+        mRenderMode = ColorPicker.RenderMode.DIRECT;
 
-        mHueLCP = (HueLinearColorPicker)v.findViewById(R.id.hue);
-        mSatLCP = (SaturationLinearColorPicker)v.findViewById(R.id.sat);
-        mValLCP = (ValueLinearColorPicker)v.findViewById(R.id.val);
+        mHueLCP = new HueLinearColorPicker(getContext(), null);
+        mSatLCP = new SaturationLinearColorPicker(getContext(), null);
+        mValLCP = new ValueLinearColorPicker(getContext(), null);
+        addChildPicker(mHueLCP);
+        addChildPicker(mSatLCP);
+        addChildPicker(mValLCP);
 
-        mHueLCP.setOnColorChangedListener(new OnColorChangedListener() {
+        // settle together with child pickers
+        mColorChangeDispatcher = new ColorChangeDispatcher();
+        mChildSettledCallback = new Runnable() {
             @Override
-            public void colorChanged(int color) {
-                mHue = ColorUtils.getHueFromColor(color);
-                mSatLCP.updateHSV(mHue, mSat, mVal);
-                mValLCP.updateHSV(mHue, mSat, mVal);
-
-                if (mOnColorChangedListener != null)
-                    mOnColorChangedListener.colorChanged(ColorUtils.getColorFromHSV(mHue, mSat, mVal));
+            public void run() {
+                mColorChangeDispatcher.settle();
             }
-        });
+        };
+        mHueLCP.getColorChangeDispatcher().setSettledCallback(mChildSettledCallback);
+        mSatLCP.getColorChangeDispatcher().setSettledCallback(mChildSettledCallback);
+        mValLCP.getColorChangeDispatcher().setSettledCallback(mChildSettledCallback);
 
-        mSatLCP.setOnColorChangedListener(new OnColorChangedListener() {
+        // children keep each other in sync through the model, their listeners only report to this picker
+        mChildListener = new OnColorChangedListener() {
             @Override
             public void colorChanged(int color) {
-                mSat = ColorUtils.getSaturationFromColor(color);
-                mHueLCP.updateHSV(mHue, mSat, mVal);
-                mValLCP.updateHSV(mHue, mSat, mVal);
-
-                if (mOnColorChangedListener != null)
-                    mOnColorChangedListener.colorChanged(ColorUtils.getColorFromHSV(mHue, mSat, mVal));
+                dispatchColorChanged();
             }
-        });
+        };
+        mHueLCP.setOnColorChangedListener(mChildListener);
+        mSatLCP.setOnColorChangedListener(mChildListener);
+        mValLCP.setOnColorChangedListener(mChildListener);
 
-        mValLCP.setOnColorChangedListener(new OnColorChangedListener() {
-            @Override
-            public void colorChanged(int color) {
-                mVal = ColorUtils.getValueFromColor(color);
-                mHueLCP.updateHSV(mHue, mSat, mVal);
-                mSatLCP.updateHSV(mHue, mSat, mVal);
+        setColorModel(new ColorModel());
+    }
 
-                if (mOnColorChangedListener != null)
-                    mOnColorChangedListener.colorChanged(ColorUtils.getColorFromHSV(mHue, mSat, mVal));
-            }
-        });
+    /**
+     * Add child picker, wrapping its height so the picker also works inside wrap_content parents such as dialogs,
+     * and sharing any extra height with the other children
+     * @param picker child picker
+     */
+    private void addChildPicker(LinearColorPicker picker) {
+        int pad = (int)TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, CHILD_PADDING, getResources().getDisplayMetrics());
+        picker.setPadding(pad, pad, pad, pad);
+        addView(picker, new LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT, 1));
+    }
+
+    private void dispatchColorChanged() {
+        long colorLong = mColorChangeDispatcher.getColorLongListener() != null ? getColorLong() : 0;
+        mColorChangeDispatcher.colorChanged(getColor(), colorLong);
+    }
+
+    /**
+     * Set new picker color from HSV components, without 8-bit quantization
+     * @param hue hue in degrees
+     * @param sat saturation, 0..1
+     * @param val value, 0..1
+     */
+    public void setHSV(float hue, float sat, float val) {
+        // each child animates its own channel
+        mHueLCP.animateToHSV(hue, sat, val);
+        mSatLCP.animateToHSV(hue, sat, val);
+        mValLCP.animateToHSV(hue, sat, val);
+    }
+
+    /**
+     * Set new picker color
+     * @param color new picker color
+     */
+    public void setColor(int color) {
+        setColorAlpha((color >>> 24) / 255f);
+        ColorUtils.colorToHSV(color, mHSVBuffer);
+        setHSV(mHSVBuffer[0], mHSVBuffer[1], mHSVBuffer[2]);
+    }
+
+    /**
+     * Set new picker color from color long, without 8-bit quantization
+     * @param color new picker color long
+     */
+    public void setColor(long color) {
+        setColorAlpha(ColorLongUtils.alpha(color));
+        ColorLongUtils.colorLongToHSV(color, mHSVBuffer);
+        setHSV(mHSVBuffer[0], mHSVBuffer[1], mHSVBuffer[2]);
+    }
+
+    /**
+     * Set picker color alpha
+     * @see ColorPicker#setColorAlpha(float)
+     * @param alpha alpha, 0..1
+     */
+    public void setColorAlpha(float alpha) {
+        if (mAlphaLCP != null)
+            mAlphaLCP.setColorAlpha(alpha); // animates
+        else
+            mColorModel.setAlpha(alpha);
+    }
+
+    /**
+     * Get picker color alpha
+     * @return alpha, 0..1
+     */
+    public float getColorAlpha() {
+        return mColorModel.getAlpha();
+    }
+
+    /**
+     * Get current picker color, including alpha
+     * @return current color
+     */
+    public int getColor() {
+        return mColorModel.getColor();
+    }
+
+    /**
+     * Get current picker color as color long, without 8-bit quantization
+     * @return current color long
+     */
+    public long getColorLong() {
+        return ColorLongUtils.HSVToColorLong(mColorModel.getHue(), mColorModel.getSaturation(), mColorModel.getValue(),
+                mColorModel.getAlpha(), mColorSpace);
+    }
+
+    /**
+     * Bind child pickers to color model, e.g. to link other pickers with this one
+     * @see ColorPicker#setColorModel(ColorModel)
+     * @param model color model, not null
+     */
+    public void setColorModel(ColorModel model) {
+        mColorModel = model;
+        mHueLCP.setColorModel(model);
+        mSatLCP.setColorModel(model);
+        mValLCP.setColorModel(model);
+        if (mAlphaLCP != null)
+            mAlphaLCP.setColorModel(model);
+    }
+
+    /**
+     * Set whether an alpha picker is shown below the value picker
+     * @param enabled true to show alpha picker
+     */
+    public void setAlphaPickerEnabled(boolean enabled) {
+        if (enabled == (mAlphaLCP != null))
+            return;
+
+        if (enabled) {
+            mAlphaLCP = new AlphaLinearColorPicker(getContext(), null);
+            mAlphaLCP.setColorSpace(mColorSpace);
+            mAlphaLCP.setRenderMode(mRenderMode);
+            mAlphaLCP.getColorChangeDispatcher().setSettledCallback(mChildSettledCallback);
+            mAlphaLCP.setOnColorChangedListener(mChildListener);
+            mAlphaLCP.setColorModel(mColorModel);
+            addChildPicker(mAlphaLCP);
+        } else {
+            removeView(mAlphaLCP);
+            mAlphaLCP.setColorModel(null);
+            mAlphaLCP = null;
+        }
+    }
+
+    /**
+     * Set how child picker gradients are drawn
+     * @see ColorPicker#setRenderMode(ColorPicker.RenderMode)
+     * @param mode render mode
+     */
+    public void setRenderMode(ColorPicker.RenderMode mode) {
+        mRenderMode = mode;
+        mHueLCP.setRenderMode(mode);
+        mSatLCP.setRenderMode(mode);
+        mValLCP.setRenderMode(mode);
+        if (mAlphaLCP != null)
+            mAlphaLCP.setRenderMode(mode);
+    }
+
+    /**
+     * Get how child picker gradients are drawn
+     * @return current render mode
+     */
+    public ColorPicker.RenderMode getRenderMode() {
+        return mRenderMode;
+    }
+
+    /**
+     * Get whether an alpha picker is shown
+     * @return true if alpha picker is shown
+     */
+    public boolean isAlphaPickerEnabled() {
+        return mAlphaLCP != null;
+    }
+
+    /**
+     * Get color model shared by child pickers
+     * @return color model
+     */
+    public ColorModel getColorModel() {
+        return mColorModel;
+    }
+
+    /**
+     * Set color space of color longs returned and dispatched by the picker
+     * @see ColorPicker#setColorSpace(int)
+     * @param colorSpace color space id
+     */
+    public void setColorSpace(int colorSpace) {
+        mHueLCP.setColorSpace(colorSpace); // validates
+        mSatLCP.setColorSpace(colorSpace);
+        mValLCP.setColorSpace(colorSpace);
+        if (mAlphaLCP != null)
+            mAlphaLCP.setColorSpace(colorSpace);
+        mColorSpace = colorSpace;
     }
 
     public void setOnColorChangedListener(OnColorChangedListener listener) {
-        mOnColorChangedListener = listener;
+        mColorChangeDispatcher.setListener(listener);
+    }
+
+    public void setOnColorLongChangedListener(OnColorLongChangedListener listener) {
+        mColorChangeDispatcher.setColorLongListener(listener);
+    }
+
+    /**
+     * Get dispatcher delivering color changed events, to rate limit them for expensive listeners
+     * @see com.github.mata1.simpledroidcolorpicker.utils.ColorChangeDispatcher
+     * @return color changed event dispatcher
+     */
+    public ColorChangeDispatcher getColorChangeDispatcher() {
+        return mColorChangeDispatcher;
     }
 }
@@ -6,7 +6,8 @@ import android.graphics.Shader;
 import android.util.AttributeSet;
 
 import com.github.mata1.simpledroidcolorpicker.pickers.ColorPicker;
-import com.github.mata1.simpledroidcolorpicker.utils.ColorUtils;
+import com.github.mata1.simpledroidcolorpicker.utils.ColorModel;
+import com.github.mata1.simpledroidcolorpicker.utils.HueShaderCache;
 
 /**
  * Hue Linear Color Picker View
@@ -23,8 +24,8 @@ public class HueLinearColorPicker extends LinearColorPicker {
 
     @Override
     protected Shader createGradient() {
-        return new LinearGradient(mRect.left, mRect.centerY(), mRect.right, mRect.centerY(),
-                ColorUtils.getHueRingColors(7, mSat, mVal), null, LinearGradient.TileMode.CLAMP);
+        return HueShaderCache.getInstance().getLinearGradient(mRect.left, mRect.right, mSat, mVal,
+                mHueMode == HueMode.PERCEPTUAL);
     }
 
     @Override
@@ -33,13 +34,18 @@ public class HueLinearColorPicker extends LinearColorPicker {
                 ColorPicker.COLORS, null, LinearGradient.TileMode.CLAMP);
     }
 
+    @Override
+    protected int getColorModelChannels() {
+        return ColorModel.CHANNEL_HUE;
+    }
+
     @Override
     protected void setColorFromFraction(float fraction) {
-        mHue = fraction * 360;
+        mHue = positionToHue(fraction * 360);
     }
 
     @Override
     protected float getFractionFromColor() {
-        return mHue / 360;
+        return hueToPosition(mHue) / 360;
     }
 }
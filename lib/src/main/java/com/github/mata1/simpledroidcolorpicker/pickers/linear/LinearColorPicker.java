@@ -1,6 +1,5 @@
 package com.github.mata1.simpledroidcolorpicker.pickers.linear;
 
-import android.animation.ValueAnimator;
 import android.content.Context;
 import android.graphics.Canvas;
 import android.graphics.Color;
@@ -10,6 +9,7 @@ import android.util.AttributeSet;
 import android.view.MotionEvent;
 
 import com.github.mata1.simpledroidcolorpicker.pickers.ColorPicker;
+import com.github.mata1.simpledroidcolorpicker.utils.ColorModel;
 import com.github.mata1.simpledroidcolorpicker.utils.ColorUtils;
 import com.github.mata1.simpledroidcolorpicker.utils.Utils;
 
@@ -21,7 +21,7 @@ public abstract class LinearColorPicker extends ColorPicker {
     protected RectF mRect;
     protected RectF mHandleRect;
 
-    private static final int RECT_EDGE_RADIUS = 10;
+    protected static final int RECT_EDGE_RADIUS = 10;
     private static final int HANDLE_PADDING = 10;
     private static final int HANDLE_EDGE_RADIUS = 5;
 
@@ -61,25 +61,44 @@ public abstract class LinearColorPicker extends ColorPicker {
         // set handle to correct position
         mHandleRect.offsetTo(getNewX() - mHandleRect.width()/2, mHandleRect.top);
 
-        mColorPaint.setShader(createGradient());
+        invalidateShader();
 
-        // if in edit mode, create different shader
-        if (isInEditMode()) {
-            mColorPaint.setShader(createFakeGradient());
+        if (isInEditMode())
             mHandlePaint.setColor(Color.RED);
-        }
+    }
+
+    @Override
+    protected void updateShaders() {
+        // if in edit mode, create different shader
+        mColorPaint.setShader(isInEditMode() ? createFakeGradient() : createGradient());
     }
 
     @Override
     protected void onDraw(Canvas canvas) {
         // draw gradient
-        canvas.drawRoundRect(mRect, RECT_EDGE_RADIUS, RECT_EDGE_RADIUS, mColorPaint);
+        renderTrack(canvas);
 
         // draw handle
         canvas.drawRoundRect(mHandleRect, HANDLE_EDGE_RADIUS, HANDLE_EDGE_RADIUS, mHandlePaint);
         canvas.drawRoundRect(mHandleRect, HANDLE_EDGE_RADIUS, HANDLE_EDGE_RADIUS, mHandleStrokePaint);
     }
 
+    @Override
+    protected void drawTrack(Canvas canvas) {
+        canvas.drawRoundRect(mRect, RECT_EDGE_RADIUS, RECT_EDGE_RADIUS, mColorPaint);
+    }
+
+    @Override
+    protected void getTrackBounds(RectF bounds) {
+        bounds.set(mRect);
+        bounds.inset(-1, -1);
+    }
+
+    @Override
+    protected void getHandleBounds(RectF bounds) {
+        bounds.set(mHandleRect);
+    }
+
     @Override
     protected void handleTouch(int motionAction, float x, float y) {
         switch (motionAction) {
@@ -153,25 +172,28 @@ public abstract class LinearColorPicker extends ColorPicker {
 
         // repaint
         setNewX(x);
-        int color = ColorUtils.getColorFromHSV(mHue, mSat, mVal);
+        int color = snapColor(ColorUtils.getColorFromHSV(mHue, mSat, mVal));
         mHandlePaint.setColor(color);
-        invalidate();
+        invalidateHandle();
 
         // fire event
-        if (mOnColorChangedListener != null)
-            mOnColorChangedListener.colorChanged(color);
+        dispatchColorChanged(color);
     }
 
     @Override
     protected void animateHandleTo(float x, float y) {
-        ValueAnimator anim = ValueAnimator.ofFloat(mHandleRect.centerX(), x);
-        anim.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator animation) {
-                moveHandleTo((float) animation.getAnimatedValue(), 0);
-            }
-        });
-        anim.start();
+        animateHandle(mHandleRect.centerX(), 0, x, 0);
+    }
+
+    @Override
+    protected void onColorModelChanged(int channels) {
+        // gradient shows the channels the handle does not set
+        if ((channels & ColorModel.CHANNELS_HSV & ~getColorModelChannels()) != 0)
+            invalidateShader();
+
+        mHandleRect.offsetTo(getNewX() - mHandleRect.width()/2, mHandleRect.top);
+        mHandlePaint.setColor(snapColor(ColorUtils.getColorFromHSV(mHue, mSat, mVal)));
+        invalidate();
     }
 
     protected abstract void setColorFromFraction(float fraction);
@@ -183,10 +205,18 @@ public abstract class LinearColorPicker extends ColorPicker {
 
     private void setNewX(float x) {
         float fraction = (x - mRect.left) / mRect.width();
-        fraction = Math.max(fraction, 0.01f); // prevent zero value
+        fraction = Math.max(fraction, getMinFraction());
         setColorFromFraction(fraction);
     }
 
+    /**
+     * Get lowest fraction the handle can pick
+     * @return minimum fraction
+     */
+    protected float getMinFraction() {
+        return 0.01f; // prevent zero value
+    }
+
     protected abstract Shader createGradient();
     protected abstract Shader createFakeGradient(); // for edit mode
 
@@ -195,10 +225,25 @@ public abstract class LinearColorPicker extends ColorPicker {
      */
 
     @Override
-    public void setColor(int color) {
-        updateHSV(ColorUtils.getHueFromColor(color),
-                ColorUtils.getSaturationFromColor(color),
-                ColorUtils.getValueFromColor(color));
+    public void setHSV(float hue, float sat, float val) {
+        animateToHSV(hue, sat, val);
+        pushToColorModel(ColorModel.CHANNELS_HSV & ~getColorModelChannels());
+    }
+
+    /**
+     * Set HSV components, animating handle to its channel. Only the handle channel is written to the color model,
+     * as the handle moves
+     * @param hue hue in degrees
+     * @param sat saturation, 0..1
+     * @param val value, 0..1
+     */
+    void animateToHSV(float hue, float sat, float val) {
+        if (!hasSize()) {
+            jumpToHSV(hue, sat, val); // track unknown yet, handle is placed in onSizeChanged
+            return;
+        }
+
+        updateHSV(hue, Utils.clamp(sat, 0, 1), Utils.clamp(val, 0, 1));
         animateHandleTo(getNewX(), 0);
     }
 
@@ -207,9 +252,8 @@ public abstract class LinearColorPicker extends ColorPicker {
         mSat = sat;
         mVal = val;
 
-        mColorPaint.setShader(createGradient());
         mHandlePaint.setColor(ColorUtils.getColorFromHSV(hue, sat, val));
-        invalidate();
+        invalidateShader();
     }
 
 }
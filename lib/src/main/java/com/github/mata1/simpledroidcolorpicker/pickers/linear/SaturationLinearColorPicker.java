@@ -6,6 +6,7 @@ import android.graphics.LinearGradient;
 import android.graphics.Shader;
 import android.util.AttributeSet;
 
+import com.github.mata1.simpledroidcolorpicker.utils.ColorModel;
 import com.github.mata1.simpledroidcolorpicker.utils.ColorUtils;
 
 /**
@@ -34,6 +35,11 @@ public class SaturationLinearColorPicker extends LinearColorPicker {
                 Color.WHITE, Color.RED, LinearGradient.TileMode.CLAMP);
     }
 
+    @Override
+    protected int getColorModelChannels() {
+        return ColorModel.CHANNEL_SATURATION;
+    }
+
     @Override
     protected void setColorFromFraction(float fraction) {
         mSat = fraction;
@@ -6,6 +6,8 @@ import android.graphics.LinearGradient;
 import android.graphics.Shader;
 import android.util.AttributeSet;
 
+import com.github.mata1.simpledroidcolorpicker.utils.ColorModel;
+import com.github.mata1.simpledroidcolorpicker.utils.ColorSpaceUtils;
 import com.github.mata1.simpledroidcolorpicker.utils.ColorUtils;
 
 /**
@@ -21,8 +23,20 @@ public class ValueLinearColorPicker extends LinearColorPicker {
         super(context, attrs, defStyle);
     }
 
+    private static final int PERCEPTUAL_STOPS = 9; // lightness spacing is not linear in RGB
+
     @Override
     protected Shader createGradient() {
+        if (mHueMode == HueMode.PERCEPTUAL) {
+            // stops evenly spaced by lightness
+            int[] colors = new int[PERCEPTUAL_STOPS];
+            for (int i = 0; i < PERCEPTUAL_STOPS; i++)
+                colors[i] = ColorUtils.getColorFromHSV(mHue, mSat,
+                        ColorSpaceUtils.lightnessToValue(i / (PERCEPTUAL_STOPS - 1f)));
+            return new LinearGradient(mRect.left, mRect.centerY(), mRect.right, mRect.centerY(),
+                    colors, null, LinearGradient.TileMode.CLAMP);
+        }
+
         return new LinearGradient(mRect.left, mRect.centerY(), mRect.right, mRect.centerY(),
                 ColorUtils.getColorFromHSV(mHue, mSat, 0), ColorUtils.getColorFromHSV(mHue, mSat, 1),
                 LinearGradient.TileMode.CLAMP);
@@ -34,13 +48,18 @@ public class ValueLinearColorPicker extends LinearColorPicker {
                 Color.BLACK, Color.RED, LinearGradient.TileMode.CLAMP);
     }
 
+    @Override
+    protected int getColorModelChannels() {
+        return ColorModel.CHANNEL_VALUE;
+    }
+
     @Override
     protected void setColorFromFraction(float fraction) {
-        mVal = fraction;
+        mVal = mHueMode == HueMode.PERCEPTUAL ? ColorSpaceUtils.lightnessToValue(fraction) : fraction;
     }
 
     @Override
     protected float getFractionFromColor() {
-        return mVal;
+        return mHueMode == HueMode.PERCEPTUAL ? ColorSpaceUtils.valueToLightness(mVal) : mVal;
     }
 }
@@ -0,0 +1,169 @@
+package com.github.mata1.simpledroidcolorpicker.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of non-negative long values, e.g. durations in nanoseconds.
+ * Buckets are fixed and log-linear like HdrHistogram's: values below 16 are counted exactly,
+ * larger values in 8 buckets per power of two, so every value is known within 12.5%.
+ * Recording is a couple of atomic increments and never allocates, so any thread can record
+ * while others take snapshots.
+ */
+public class AtomicHistogram {
+
+    private static final int SUB_BITS = 3;
+    private static final int SUB_COUNT = 1 << SUB_BITS; // buckets per power of two
+    private static final int LINEAR_COUNT = SUB_COUNT * 2; // values below are counted exactly
+    static final int BUCKET_COUNT = LINEAR_COUNT + (63 - (SUB_BITS + 1)) * SUB_COUNT;
+
+    private final AtomicLongArray mCounts;
+    private final AtomicLong mSum, mMax;
+
+    public AtomicHistogram() {
+        mCounts = new AtomicLongArray(BUCKET_COUNT);
+        mSum = new AtomicLong();
+        mMax = new AtomicLong();
+    }
+
+    /**
+     * Record value
+     * @param value value, negative values are recorded as 0
+     */
+    public void record(long value) {
+        if (value < 0)
+            value = 0;
+
+        mCounts.incrementAndGet(bucketIndex(value));
+        mSum.addAndGet(value);
+        long max;
+        while (value > (max = mMax.get()) && !mMax.compareAndSet(max, value)) {
+            // retry, another thread raised max
+        }
+    }
+
+    /**
+     * Clear all recorded values. Values recorded concurrently may be partially kept
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++)
+            mCounts.set(i, 0);
+        mSum.set(0);
+        mMax.set(0);
+    }
+
+    /**
+     * Copy recorded values. Values recorded concurrently may be partially included
+     * @return snapshot of recorded values
+     */
+    public Snapshot getSnapshot() {
+        long[] counts = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = mCounts.get(i);
+            total += counts[i];
+        }
+        return new Snapshot(counts, total, mSum.get(), mMax.get());
+    }
+
+    /**
+     * Get bucket of value
+     * @param value non-negative value
+     * @return bucket index
+     */
+    static int bucketIndex(long value) {
+        if (value < LINEAR_COUNT)
+            return (int)value;
+
+        int magnitude = 63 - Long.numberOfLeadingZeros(value); // >= SUB_BITS + 1
+        int top = (int)(value >>> (magnitude - SUB_BITS)); // SUB_COUNT..2*SUB_COUNT-1
+        return LINEAR_COUNT + (magnitude - SUB_BITS - 1) * SUB_COUNT + (top - SUB_COUNT);
+    }
+
+    /**
+     * Get highest value counted in bucket
+     * @param index bucket index
+     * @return highest value of bucket
+     */
+    static long bucketUpperBound(int index) {
+        if (index < LINEAR_COUNT)
+            return index;
+
+        int k = index - LINEAR_COUNT;
+        int shift = k / SUB_COUNT + 1;
+        long top = k % SUB_COUNT + SUB_COUNT;
+        return ((top + 1) << shift) - 1;
+    }
+
+    /**
+     * Immutable copy of histogram counts
+     */
+    public static class Snapshot {
+        private final long[] mCounts;
+        private final long mTotalCount, mSum, mMax;
+
+        Snapshot(long[] counts, long totalCount, long sum, long max) {
+            mCounts = counts;
+            mTotalCount = totalCount;
+            mSum = sum;
+            mMax = max;
+        }
+
+        /**
+         * Get number of recorded values
+         * @return value count
+         */
+        public long getCount() {
+            return mTotalCount;
+        }
+
+        /**
+         * Get mean of recorded values
+         * @return exact mean, 0 if empty
+         */
+        public double getMean() {
+            return mTotalCount == 0 ? 0 : (double)mSum / mTotalCount;
+        }
+
+        /**
+         * Get largest recorded value
+         * @return exact maximum, 0 if empty
+         */
+        public long getMax() {
+            return mMax;
+        }
+
+        /**
+         * Get value at percentile, as the highest value of its bucket
+         * @param percentile percentile, 0..100
+         * @return value at or above percentile of values, within 12.5%, 0 if empty
+         */
+        public long getValueAtPercentile(double percentile) {
+            if (mTotalCount == 0)
+                return 0;
+
+            long rank = Math.max((long)Math.ceil(Math.min(Math.max(percentile, 0), 100) / 100 * mTotalCount), 1);
+            long seen = 0;
+            for (int i = 0; i < mCounts.length; i++) {
+                seen += mCounts[i];
+                if (seen >= rank)
+                    return Math.min(bucketUpperBound(i), mMax);
+            }
+            return mMax;
+        }
+
+        /**
+         * Get summary, e.g. for logging
+         * @return count, mean, 50th/90th/99th percentiles and max
+         */
+        @Override
+        public String toString() {
+            return "count=" + mTotalCount
+                    + " mean=" + Math.round(getMean())
+                    + " p50=" + getValueAtPercentile(50)
+                    + " p90=" + getValueAtPercentile(90)
+                    + " p99=" + getValueAtPercentile(99)
+                    + " max=" + mMax;
+        }
+    }
+}
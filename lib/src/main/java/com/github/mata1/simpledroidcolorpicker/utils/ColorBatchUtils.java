@@ -0,0 +1,239 @@
+package com.github.mata1.simpledroidcolorpicker.utils;
+
+import java.nio.Buffer;
+import java.nio.BufferOverflowException;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Bulk color conversion between packed ARGB colors and planar HSV (separate hue, saturation and value arrays).
+ * Every method converts a whole range in a single pass without allocating per color
+ */
+public class ColorBatchUtils {
+
+    /**
+     * Minimum number of colors per task when converting in parallel
+     */
+    public static final int MIN_CHUNK_SIZE = 16 * 1024;
+
+    /**
+     * Convert colors to planar HSV
+     * @param colors source colors
+     * @param offset index of first source color
+     * @param hue destination hue array, 0..360
+     * @param saturation destination saturation array, 0..1
+     * @param value destination value array, 0..1
+     * @param hsvOffset index of first destination element
+     * @param length number of colors to convert
+     */
+    public static void colorsToHSV(int[] colors, int offset, float[] hue, float[] saturation, float[] value,
+                                   int hsvOffset, int length) {
+        checkRange(colors.length, offset, length);
+        checkRange(hue.length, hsvOffset, length);
+        checkRange(saturation.length, hsvOffset, length);
+        checkRange(value.length, hsvOffset, length);
+
+        for (int i = 0; i < length; i++) {
+            int color = colors[offset + i];
+            int r = (color >> 16) & 0xFF;
+            int g = (color >> 8) & 0xFF;
+            int b = color & 0xFF;
+            int max = Math.max(r, Math.max(g, b));
+            int delta = max - Math.min(r, Math.min(g, b));
+
+            int j = hsvOffset + i;
+            hue[j] = ColorUtils.getHue(r, g, b, max, delta);
+            saturation[j] = max == 0 ? 0 : delta / (float)max;
+            value[j] = max / 255f;
+        }
+    }
+
+    /**
+     * Convert planar HSV to opaque colors, using current {@link ColorUtils.ConversionMode}
+     * @param hue source hue array, degrees
+     * @param saturation source saturation array, 0..1
+     * @param value source value array, 0..1
+     * @param hsvOffset index of first source element
+     * @param colors destination colors
+     * @param offset index of first destination color
+     * @param length number of colors to convert
+     */
+    public static void HSVToColors(float[] hue, float[] saturation, float[] value, int hsvOffset,
+                                   int[] colors, int offset, int length) {
+        checkRange(colors.length, offset, length);
+        checkRange(hue.length, hsvOffset, length);
+        checkRange(saturation.length, hsvOffset, length);
+        checkRange(value.length, hsvOffset, length);
+
+        for (int i = 0; i < length; i++) {
+            int j = hsvOffset + i;
+            colors[offset + i] = ColorUtils.HSVToColor(hue[j], saturation[j], value[j]);
+        }
+    }
+
+    /**
+     * Convert remaining colors in buffer to planar HSV. Like NIO bulk operations, reads and writes
+     * start at buffer positions and positions are advanced by the number of converted colors
+     * @param colors source colors
+     * @param hue destination hue buffer
+     * @param saturation destination saturation buffer
+     * @param value destination value buffer
+     */
+    public static void colorsToHSV(IntBuffer colors, FloatBuffer hue, FloatBuffer saturation, FloatBuffer value) {
+        int length = colors.remaining();
+        checkRemaining(hue, length);
+        checkRemaining(saturation, length);
+        checkRemaining(value, length);
+
+        for (int i = 0; i < length; i++) {
+            int color = colors.get();
+            int r = (color >> 16) & 0xFF;
+            int g = (color >> 8) & 0xFF;
+            int b = color & 0xFF;
+            int max = Math.max(r, Math.max(g, b));
+            int delta = max - Math.min(r, Math.min(g, b));
+
+            hue.put(ColorUtils.getHue(r, g, b, max, delta));
+            saturation.put(max == 0 ? 0 : delta / (float)max);
+            value.put(max / 255f);
+        }
+    }
+
+    /**
+     * Convert remaining planar HSV in buffers to opaque colors. Like NIO bulk operations, reads and writes
+     * start at buffer positions and positions are advanced by the number of converted colors
+     * @param hue source hue buffer
+     * @param saturation source saturation buffer
+     * @param value source value buffer
+     * @param colors destination colors
+     */
+    public static void HSVToColors(FloatBuffer hue, FloatBuffer saturation, FloatBuffer value, IntBuffer colors) {
+        int length = hue.remaining();
+        checkRemaining(saturation, length);
+        checkRemaining(value, length);
+        checkRemaining(colors, length);
+
+        for (int i = 0; i < length; i++)
+            colors.put(ColorUtils.HSVToColor(hue.get(), saturation.get(), value.get()));
+    }
+
+    /**
+     * Convert colors to planar HSV, splitting large ranges across executor threads.
+     * The calling thread converts one chunk itself and blocks until all chunks are done
+     * @param executor executor running conversion tasks
+     * @param colors source colors
+     * @param offset index of first source color
+     * @param hue destination hue array, 0..360
+     * @param saturation destination saturation array, 0..1
+     * @param value destination value array, 0..1
+     * @param hsvOffset index of first destination element
+     * @param length number of colors to convert
+     * @param parallelism maximum number of chunks, e.g. number of cores
+     * @throws InterruptedException if interrupted while waiting for tasks
+     */
+    public static void colorsToHSV(ExecutorService executor, final int[] colors, final int offset,
+                                   final float[] hue, final float[] saturation, final float[] value,
+                                   final int hsvOffset, int length, int parallelism) throws InterruptedException {
+        checkRange(colors.length, offset, length);
+        checkRange(hue.length, hsvOffset, length);
+        checkRange(saturation.length, hsvOffset, length);
+        checkRange(value.length, hsvOffset, length);
+
+        int chunks = Math.max(1, Math.min(parallelism, length / MIN_CHUNK_SIZE));
+        int chunkSize = (length + chunks - 1) / chunks;
+
+        List<Future<?>> futures = new ArrayList<Future<?>>(chunks - 1);
+        try {
+            for (int start = chunkSize; start < length; start += chunkSize) {
+                final int s = start;
+                final int n = Math.min(chunkSize, length - start);
+                futures.add(executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        colorsToHSV(colors, offset + s, hue, saturation, value, hsvOffset + s, n);
+                    }
+                }));
+            }
+
+            colorsToHSV(colors, offset, hue, saturation, value, hsvOffset, Math.min(chunkSize, length));
+            await(futures);
+        } finally {
+            cancel(futures);
+        }
+    }
+
+    /**
+     * Convert planar HSV to opaque colors, splitting large ranges across executor threads.
+     * The calling thread converts one chunk itself and blocks until all chunks are done
+     * @param executor executor running conversion tasks
+     * @param hue source hue array, degrees
+     * @param saturation source saturation array, 0..1
+     * @param value source value array, 0..1
+     * @param hsvOffset index of first source element
+     * @param colors destination colors
+     * @param offset index of first destination color
+     * @param length number of colors to convert
+     * @param parallelism maximum number of chunks, e.g. number of cores
+     * @throws InterruptedException if interrupted while waiting for tasks
+     */
+    public static void HSVToColors(ExecutorService executor, final float[] hue, final float[] saturation,
+                                   final float[] value, final int hsvOffset, final int[] colors, final int offset,
+                                   int length, int parallelism) throws InterruptedException {
+        checkRange(colors.length, offset, length);
+        checkRange(hue.length, hsvOffset, length);
+        checkRange(saturation.length, hsvOffset, length);
+        checkRange(value.length, hsvOffset, length);
+
+        int chunks = Math.max(1, Math.min(parallelism, length / MIN_CHUNK_SIZE));
+        int chunkSize = (length + chunks - 1) / chunks;
+
+        List<Future<?>> futures = new ArrayList<Future<?>>(chunks - 1);
+        try {
+            for (int start = chunkSize; start < length; start += chunkSize) {
+                final int s = start;
+                final int n = Math.min(chunkSize, length - start);
+                futures.add(executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        HSVToColors(hue, saturation, value, hsvOffset + s, colors, offset + s, n);
+                    }
+                }));
+            }
+
+            HSVToColors(hue, saturation, value, hsvOffset, colors, offset, Math.min(chunkSize, length));
+            await(futures);
+        } finally {
+            cancel(futures);
+        }
+    }
+
+    private static void await(List<Future<?>> futures) throws InterruptedException {
+        try {
+            for (Future<?> future : futures)
+                future.get();
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private static void cancel(List<Future<?>> futures) {
+        // stops chunks still pending after a failure, no-op for completed ones
+        for (Future<?> future : futures)
+            future.cancel(true);
+    }
+
+    private static void checkRange(int arrayLength, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > arrayLength - length)
+            throw new ArrayIndexOutOfBoundsException("offset " + offset + ", length " + length + ", array length " + arrayLength);
+    }
+
+    private static void checkRemaining(Buffer buffer, int length) {
+        if (buffer.remaining() < length)
+            throw new BufferOverflowException();
+    }
+}
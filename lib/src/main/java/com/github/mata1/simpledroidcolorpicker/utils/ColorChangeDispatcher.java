@@ -0,0 +1,225 @@
+package com.github.mata1.simpledroidcolorpicker.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import com.github.mata1.simpledroidcolorpicker.interfaces.OnColorChangedListener;
+import com.github.mata1.simpledroidcolorpicker.interfaces.OnColorLongChangedListener;
+
+/**
+ * Delivers color changed events to a listener, either immediately or rate limited.
+ * Whatever the mode, the last color is always delivered: by a trailing dispatch when rate limited,
+ * or when the picker settles (handle released, animation finished).
+ * Must be used from the main thread.
+ */
+public class ColorChangeDispatcher {
+
+    public enum Mode {
+        /** every change is delivered synchronously */
+        IMMEDIATE,
+        /** at most one change is delivered per interval, plus the trailing one */
+        THROTTLED,
+        /** change is delivered after no changes happened for the interval */
+        DEBOUNCED,
+        /** only the color the picker settled on is delivered */
+        SETTLED
+    }
+
+    private OnColorChangedListener mListener;
+    private OnColorLongChangedListener mColorLongListener;
+    private Runnable mSettledCallback;
+
+    private Mode mMode;
+    private long mInterval; // milliseconds
+
+    private final Handler mHandler;
+    private final Runnable mDispatchRunnable;
+
+    private int mPendingColor;
+    private long mPendingColorLong;
+    private boolean mPending, mScheduled;
+    private long mLastDispatchTime;
+
+    public ColorChangeDispatcher() {
+        mMode = Mode.IMMEDIATE;
+        mHandler = new Handler(Looper.getMainLooper());
+        mDispatchRunnable = new Runnable() {
+            @Override
+            public void run() {
+                mScheduled = false;
+                dispatchPending();
+            }
+        };
+    }
+
+    /**
+     * Set listener that receives the dispatched colors
+     * @param listener color changed listener, may be null
+     */
+    public void setListener(OnColorChangedListener listener) {
+        mListener = listener;
+    }
+
+    /**
+     * Get listener that receives the dispatched colors
+     * @return color changed listener
+     */
+    public OnColorChangedListener getListener() {
+        return mListener;
+    }
+
+    /**
+     * Set listener that receives the dispatched colors as color longs, in the same events as the int listener
+     * @param listener color long changed listener, may be null
+     */
+    public void setColorLongListener(OnColorLongChangedListener listener) {
+        mColorLongListener = listener;
+    }
+
+    /**
+     * Get listener that receives the dispatched colors as color longs
+     * @return color long changed listener
+     */
+    public OnColorLongChangedListener getColorLongListener() {
+        return mColorLongListener;
+    }
+
+    /**
+     * Set callback run every time the picker settles, after the final color was delivered
+     * @param callback settled callback, may be null
+     */
+    public void setSettledCallback(Runnable callback) {
+        mSettledCallback = callback;
+    }
+
+    /**
+     * Deliver every change immediately
+     */
+    public void setImmediate() {
+        setMode(Mode.IMMEDIATE, 0);
+    }
+
+    /**
+     * Deliver at most maxRate changes per second
+     * @param maxRate maximum rate in Hz
+     */
+    public void setThrottled(float maxRate) {
+        setMode(Mode.THROTTLED, maxRate > 0 ? (long)(1000 / maxRate) : 0);
+    }
+
+    /**
+     * Deliver change once no other change happened for given delay
+     * @param delay quiet period in milliseconds
+     */
+    public void setDebounced(long delay) {
+        setMode(Mode.DEBOUNCED, delay);
+    }
+
+    /**
+     * Deliver only the color the picker settled on
+     */
+    public void setSettledOnly() {
+        setMode(Mode.SETTLED, 0);
+    }
+
+    private void setMode(Mode mode, long interval) {
+        dispatchPending(); // never drop a color when switching modes
+        mMode = mode;
+        mInterval = Math.max(interval, 0);
+    }
+
+    /**
+     * Get current dispatch mode
+     * @return dispatch mode
+     */
+    public Mode getMode() {
+        return mMode;
+    }
+
+    /**
+     * Report color change, delivered according to current mode
+     * @param color new color
+     */
+    public void colorChanged(int color) {
+        colorChanged(color, ColorLongUtils.pack(color));
+    }
+
+    /**
+     * Report color change, delivered according to current mode
+     * @param color new color
+     * @param colorLong new color as color long, without 8-bit quantization
+     */
+    public void colorChanged(int color, long colorLong) {
+        if (mListener == null && mColorLongListener == null)
+            return;
+
+        mPendingColor = color;
+        mPendingColorLong = colorLong;
+        mPending = true;
+
+        switch (mMode) {
+            case THROTTLED:
+                long now = SystemClock.uptimeMillis();
+                if (now - mLastDispatchTime >= mInterval) {
+                    cancelScheduled();
+                    dispatchPending();
+                } else if (!mScheduled) {
+                    mScheduled = true;
+                    mHandler.postAtTime(mDispatchRunnable, mLastDispatchTime + mInterval);
+                }
+                break;
+
+            case DEBOUNCED:
+                cancelScheduled();
+                mScheduled = true;
+                mHandler.postDelayed(mDispatchRunnable, mInterval);
+                break;
+
+            case SETTLED:
+                break; // wait for settle()
+
+            default:
+                dispatchPending();
+                break;
+        }
+    }
+
+    /**
+     * Report that the picker settled, delivers pending color right away
+     */
+    public void settle() {
+        cancelScheduled();
+        dispatchPending();
+
+        if (mSettledCallback != null)
+            mSettledCallback.run();
+    }
+
+    /**
+     * Drop pending color without delivering it
+     */
+    public void cancel() {
+        cancelScheduled();
+        mPending = false;
+    }
+
+    private void cancelScheduled() {
+        if (mScheduled) {
+            mScheduled = false;
+            mHandler.removeCallbacks(mDispatchRunnable);
+        }
+    }
+
+    private void dispatchPending() {
+        if (!mPending)
+            return;
+
+        mPending = false;
+        mLastDispatchTime = SystemClock.uptimeMillis();
+        if (mListener != null)
+            mListener.colorChanged(mPendingColor);
+        if (mColorLongListener != null)
+            mColorLongListener.colorChanged(mPendingColorLong);
+    }
+}
@@ -0,0 +1,131 @@
+package com.github.mata1.simpledroidcolorpicker.utils;
+
+/**
+ * Color harmonies: base color plus colors at fixed hue rotations. Results are written into caller buffers
+ * and nothing is allocated, so harmonies can be recomputed on every color change or frame.
+ */
+public class ColorHarmony {
+
+    /**
+     * Hue rotations of harmony colors relative to the base color
+     */
+    public enum Scheme {
+        /** opposite hue */
+        COMPLEMENTARY(180),
+        /** neighbouring hues */
+        ANALOGOUS(-30, 30),
+        /** hues next to the opposite hue */
+        SPLIT_COMPLEMENTARY(150, 210),
+        /** three hues evenly spaced */
+        TRIADIC(120, 240),
+        /** two complementary pairs, rectangle */
+        TETRADIC(60, 180, 240),
+        /** four hues evenly spaced */
+        SQUARE(90, 180, 270);
+
+        private final float[] mOffsets;
+
+        Scheme(float... offsets) {
+            mOffsets = offsets;
+        }
+
+        /**
+         * Get number of harmony colors, including base color
+         * @return number of colors
+         */
+        public int size() {
+            return mOffsets.length + 1;
+        }
+
+        /**
+         * Get hue rotation of harmony color
+         * @param index color index, 0 for base color
+         * @return rotation in degrees
+         */
+        public float getOffset(int index) {
+            return index == 0 ? 0 : mOffsets[index - 1];
+        }
+    }
+
+    /**
+     * Color space hues are rotated in
+     */
+    public enum Space {
+        /** HSV hue, saturation and value are kept */
+        HSV,
+        /** OKLCH hue, lightness and chroma are kept, so harmony colors look equally light */
+        OKLCH
+    }
+
+    /** maximum number of colors of any scheme, to size buffers */
+    public static final int MAX_SIZE = 4;
+
+    private static final ThreadLocal<float[]> sBuffer = new ThreadLocal<float[]>() {
+        @Override
+        protected float[] initialValue() {
+            return new float[3];
+        }
+    };
+
+    /**
+     * Generate harmony of HSV color, rotating hue in HSV
+     * @param hue base hue in degrees
+     * @param sat base saturation, 0..1
+     * @param val base value, 0..1
+     * @param scheme harmony scheme
+     * @param colors output colors, base color first, length >= {@link Scheme#size()}
+     * @return number of colors written
+     */
+    public static int generate(float hue, float sat, float val, Scheme scheme, int[] colors) {
+        int n = scheme.size();
+        for (int i = 0; i < n; i++)
+            colors[i] = ColorUtils.getColorFromHSV(Utils.normalizeAngle(hue + scheme.getOffset(i)), sat, val);
+        return n;
+    }
+
+    /**
+     * Generate harmony of color, alpha is kept
+     * @param color base color
+     * @param scheme harmony scheme
+     * @param space color space to rotate hue in
+     * @param colors output colors, base color first, length >= {@link Scheme#size()}
+     * @return number of colors written
+     */
+    public static int generate(int color, Scheme scheme, Space space, int[] colors) {
+        int alpha = color & 0xFF000000;
+        int n = scheme.size();
+
+        if (space == Space.OKLCH) {
+            float[] lch = sBuffer.get();
+            ColorSpaceUtils.colorToOkLch(color, lch);
+            colors[0] = color;
+            for (int i = 1; i < n; i++) {
+                int c = ColorSpaceUtils.okLchToColor(lch[0], lch[1], lch[2] + scheme.getOffset(i));
+                colors[i] = alpha | (c & 0xFFFFFF);
+            }
+        } else {
+            float hue = ColorUtils.getHueFromColor(color);
+            float sat = ColorUtils.getSaturationFromColor(color);
+            float val = ColorUtils.getValueFromColor(color);
+            generate(hue, sat, val, scheme, colors);
+            colors[0] = color;
+            for (int i = 1; i < n; i++)
+                colors[i] = alpha | (colors[i] & 0xFFFFFF);
+        }
+        return n;
+    }
+
+    /**
+     * Get HSV hues of harmony, rotated in HSV
+     * @param hue base hue in degrees
+     * @param scheme harmony scheme
+     * @param hues output hues, base hue first, length >= {@link Scheme#size()}
+     * @return number of hues written
+     */
+    public static int getHues(float hue, Scheme scheme, float[] hues) {
+        int n = scheme.size();
+        for (int i = 0; i < n; i++)
+            hues[i] = Utils.normalizeAngle(hue + scheme.getOffset(i));
+        return n;
+    }
+}
@@ -0,0 +1,565 @@
+package com.github.mata1.simpledroidcolorpicker.utils;
+
+import com.github.mata1.simpledroidcolorpicker.interfaces.OnColorHistoryChangedListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Bounded store of recently picked and favorite colors. Colors are kept in primitive int buffers, most recent
+ * first, picking a color again moves it to the front instead of adding a duplicate. Reading colors never
+ * touches the disk, so it is safe to do while drawing.
+ * <p>
+ * When backed by a file, the file is loaded and changes are written behind on a background executor:
+ * changes are batched for a short delay and appended to a log in one write. Every record carries a checksum,
+ * so a record torn by a crash is dropped on the next load, and the log is compacted into a fresh snapshot
+ * whenever it grows too long or was found damaged.
+ */
+public class ColorHistory {
+
+    public static final int DEFAULT_CAPACITY = 16;
+    public static final long DEFAULT_FLUSH_DELAY = 500; // milliseconds
+
+    private static final long MAX_RETRY_DELAY = 60000; // milliseconds, failed writes back off up to this
+
+    private static final int MAGIC = 0x53444348; // "SDCH"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int RECORD_SIZE = 12; // op, color, checksum
+    private static final int COMPACT_FACTOR = 8; // compact when log holds this many records per slot
+
+    private static final int OP_RECENT = 1;
+    private static final int OP_FAVORITE = 2;
+    private static final int OP_UNFAVORITE = 3;
+    private static final int OP_CLEAR_RECENTS = 4;
+
+    private final int[] mRecent; // ring buffer
+    private int mRecentHead, mRecentCount;
+    private final int[] mFavorites; // most recent first
+    private int mFavoriteCount;
+
+    private final CopyOnWriteArrayList<OnColorHistoryChangedListener> mListeners; // notified from loader thread too
+
+    // persistence
+    private final File mFile;
+    private final ScheduledExecutorService mExecutor;
+    private final boolean mOwnsExecutor;
+    private final Runnable mFlushRunnable;
+    private long mFlushDelay;
+    private long mRetryDelay; // delay of next retry after a failed write, 0 after success
+    private int[] mPendingOps, mPendingColors;
+    private int mPendingCount;
+    private boolean mFlushScheduled, mLoaded, mClosed;
+    private boolean mNeedsCompaction; // file damaged or too long, rewrite snapshot on next flush
+    private int mLogRecords; // records in file
+
+    private final Object mFileLock = new Object();
+
+    /**
+     * Create history kept in memory only
+     * @param capacity maximum number of recent colors and of favorite colors
+     */
+    public ColorHistory(int capacity) {
+        this(capacity, null, null);
+    }
+
+    /**
+     * Create history persisted to file, loaded in the background
+     * @param capacity maximum number of recent colors and of favorite colors
+     * @param file history file, created if missing
+     * @param executor executor loading and writing the file, running one task at a time,
+     *                 null to use an internal background thread
+     */
+    public ColorHistory(int capacity, File file, ScheduledExecutorService executor) {
+        capacity = Math.max(capacity, 1);
+        mRecent = new int[capacity];
+        mFavorites = new int[capacity];
+        mListeners = new CopyOnWriteArrayList<OnColorHistoryChangedListener>();
+
+        mFile = file;
+        mFlushDelay = DEFAULT_FLUSH_DELAY;
+        mPendingOps = new int[capacity];
+        mPendingColors = new int[capacity];
+
+        if (file == null) {
+            mExecutor = null;
+            mOwnsExecutor = false;
+            mFlushRunnable = null;
+            mLoaded = true;
+            return;
+        }
+
+        mOwnsExecutor = executor == null;
+        mExecutor = executor != null ? executor : Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "ColorHistory");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        mFlushRunnable = new Runnable() {
+            @Override
+            public void run() {
+                flushPending();
+            }
+        };
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                load();
+            }
+        });
+    }
+
+    /**
+     * Add listener notified when colors change or the file finished loading
+     * @param listener history changed listener
+     */
+    public void addListener(OnColorHistoryChangedListener listener) {
+        mListeners.addIfAbsent(listener);
+    }
+
+    /**
+     * Remove listener notified when colors change
+     * @param listener history changed listener
+     */
+    public void removeListener(OnColorHistoryChangedListener listener) {
+        mListeners.remove(listener);
+    }
+
+    /**
+     * Add picked color to the front of recent colors, the oldest color is dropped when full
+     * @param color picked color
+     */
+    public void addRecent(int color) {
+        synchronized (this) {
+            applyRecent(color);
+            record(OP_RECENT, color);
+        }
+        notifyChanged();
+    }
+
+    /**
+     * Remove all recent colors, favorites are kept
+     */
+    public void clearRecents() {
+        synchronized (this) {
+            mRecentCount = 0;
+            record(OP_CLEAR_RECENTS, 0);
+        }
+        notifyChanged();
+    }
+
+    /**
+     * Add color to the front of favorite colors, the oldest favorite is dropped when full
+     * @param color favorite color
+     */
+    public void addFavorite(int color) {
+        synchronized (this) {
+            if (!applyFavorite(color))
+                return;
+            record(OP_FAVORITE, color);
+        }
+        notifyChanged();
+    }
+
+    /**
+     * Remove color from favorite colors
+     * @param color favorite color
+     */
+    public void removeFavorite(int color) {
+        synchronized (this) {
+            if (!applyUnfavorite(color))
+                return;
+            record(OP_UNFAVORITE, color);
+        }
+        notifyChanged();
+    }
+
+    /**
+     * Get whether color is a favorite
+     * @param color color
+     * @return true if color is a favorite
+     */
+    public synchronized boolean isFavorite(int color) {
+        return indexOf(mFavorites, mFavoriteCount, color) >= 0;
+    }
+
+    /**
+     * Copy recent colors into array, most recent first
+     * @param colors destination array
+     * @return number of copied colors
+     */
+    public synchronized int getRecentColors(int[] colors) {
+        int n = Math.min(colors.length, mRecentCount);
+        for (int i = 0; i < n; i++)
+            colors[i] = mRecent[(mRecentHead + i) % mRecent.length];
+        return n;
+    }
+
+    /**
+     * Get number of recent colors
+     * @return recent color count
+     */
+    public synchronized int getRecentCount() {
+        return mRecentCount;
+    }
+
+    /**
+     * Copy favorite colors into array, most recently added first
+     * @param colors destination array
+     * @return number of copied colors
+     */
+    public synchronized int getFavoriteColors(int[] colors) {
+        int n = Math.min(colors.length, mFavoriteCount);
+        System.arraycopy(mFavorites, 0, colors, 0, n);
+        return n;
+    }
+
+    /**
+     * Get number of favorite colors
+     * @return favorite color count
+     */
+    public synchronized int getFavoriteCount() {
+        return mFavoriteCount;
+    }
+
+    /**
+     * Get maximum number of recent colors and of favorite colors
+     * @return capacity
+     */
+    public int getCapacity() {
+        return mRecent.length;
+    }
+
+    /**
+     * Get whether the history file finished loading, always true for in-memory history
+     * @return true if loaded
+     */
+    public synchronized boolean isLoaded() {
+        return mLoaded;
+    }
+
+    /**
+     * Set how long changes are batched before they are written
+     * @param delay flush delay in milliseconds
+     */
+    public synchronized void setFlushDelay(long delay) {
+        mFlushDelay = Math.max(delay, 0);
+    }
+
+    /**
+     * Write pending changes as soon as possible, without waiting for the flush delay.
+     * Does nothing after {@link #close()}
+     */
+    public synchronized void flush() {
+        if (mExecutor != null && !mClosed)
+            mExecutor.execute(mFlushRunnable);
+    }
+
+    /**
+     * Write pending changes and stop the internal background thread, if any.
+     * Later changes are kept in memory only, closing again does nothing
+     */
+    public synchronized void close() {
+        if (mExecutor == null || mClosed)
+            return;
+        mClosed = true;
+        mExecutor.execute(mFlushRunnable);
+        if (mOwnsExecutor)
+            mExecutor.shutdown(); // queued flush still runs
+    }
+
+    /*
+    IN-MEMORY STATE, guarded by this
+     */
+
+    private void applyRecent(int color) {
+        int cap = mRecent.length;
+        int found = -1;
+        for (int i = 0; i < mRecentCount; i++) {
+            if (mRecent[(mRecentHead + i) % cap] == color) {
+                found = i;
+                break;
+            }
+        }
+
+        if (found < 0) {
+            // push front, overwriting the oldest color when full
+            mRecentHead = (mRecentHead + cap - 1) % cap;
+            mRecent[mRecentHead] = color;
+            mRecentCount = Math.min(mRecentCount + 1, cap);
+        } else {
+            // move to front
+            for (int i = found; i > 0; i--)
+                mRecent[(mRecentHead + i) % cap] = mRecent[(mRecentHead + i - 1) % cap];
+            mRecent[mRecentHead] = color;
+        }
+    }
+
+    private boolean applyFavorite(int color) {
+        if (indexOf(mFavorites, mFavoriteCount, color) >= 0)
+            return false;
+
+        int n = Math.min(mFavoriteCount, mFavorites.length - 1);
+        System.arraycopy(mFavorites, 0, mFavorites, 1, n);
+        mFavorites[0] = color;
+        mFavoriteCount = n + 1;
+        return true;
+    }
+
+    private boolean applyUnfavorite(int color) {
+        int index = indexOf(mFavorites, mFavoriteCount, color);
+        if (index < 0)
+            return false;
+
+        System.arraycopy(mFavorites, index + 1, mFavorites, index, mFavoriteCount - index - 1);
+        mFavoriteCount--;
+        return true;
+    }
+
+    private void apply(int op, int color) {
+        switch (op) {
+            case OP_RECENT: applyRecent(color); break;
+            case OP_FAVORITE: applyFavorite(color); break;
+            case OP_UNFAVORITE: applyUnfavorite(color); break;
+            case OP_CLEAR_RECENTS: mRecentCount = 0; break;
+        }
+    }
+
+    private static int indexOf(int[] colors, int count, int color) {
+        for (int i = 0; i < count; i++)
+            if (colors[i] == color)
+                return i;
+        return -1;
+    }
+
+    private void notifyChanged() {
+        for (OnColorHistoryChangedListener listener : mListeners)
+            listener.historyChanged(this);
+    }
+
+    /*
+    PERSISTENCE
+     */
+
+    /**
+     * Queue change for the next flush, guarded by this
+     */
+    private void record(int op, int color) {
+        if (mFile == null || mClosed)
+            return;
+
+        if (mPendingCount == mPendingOps.length) {
+            int[] ops = new int[mPendingCount * 2];
+            int[] colors = new int[mPendingCount * 2];
+            System.arraycopy(mPendingOps, 0, ops, 0, mPendingCount);
+            System.arraycopy(mPendingColors, 0, colors, 0, mPendingCount);
+            mPendingOps = ops;
+            mPendingColors = colors;
+        }
+        mPendingOps[mPendingCount] = op;
+        mPendingColors[mPendingCount] = color;
+        mPendingCount++;
+
+        scheduleFlush(mFlushDelay);
+    }
+
+    /**
+     * Schedule flush unless one is scheduled already, guarded by this
+     */
+    private void scheduleFlush(long delay) {
+        if (mLoaded && !mFlushScheduled && !mClosed) {
+            mFlushScheduled = true;
+            mExecutor.schedule(mFlushRunnable, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Replay history file, then changes made while it was loading
+     */
+    private void load() {
+        byte[] data = null;
+        synchronized (mFileLock) {
+            try {
+                data = readFile();
+            } catch (IOException e) {
+                // unreadable, start empty and rewrite
+            }
+        }
+
+        synchronized (this) {
+            int ops = mPendingCount;
+            mRecentCount = 0;
+            mFavoriteCount = 0;
+            mNeedsCompaction = true; // missing or damaged file gets rewritten
+            mLogRecords = 0;
+
+            if (data != null && data.length >= HEADER_SIZE) {
+                ByteBuffer buffer = ByteBuffer.wrap(data);
+                if (buffer.getInt() == MAGIC && buffer.getInt() == VERSION) {
+                    CRC32 crc = new CRC32();
+                    while (buffer.remaining() >= RECORD_SIZE) {
+                        int op = buffer.getInt();
+                        int color = buffer.getInt();
+                        if (buffer.getInt() != checksum(crc, op, color) || op < OP_RECENT || op > OP_CLEAR_RECENTS)
+                            break; // torn or damaged, drop the rest
+                        apply(op, color);
+                        mLogRecords++;
+                    }
+                    mNeedsCompaction = buffer.hasRemaining();
+                }
+            }
+
+            // changes made before loading finished go on top
+            for (int i = 0; i < ops; i++)
+                apply(mPendingOps[i], mPendingColors[i]);
+
+            mLoaded = true;
+            if (mNeedsCompaction || mPendingCount > 0)
+                scheduleFlush(mFlushDelay);
+        }
+        notifyChanged();
+    }
+
+    /**
+     * Write pending changes, appending them or rewriting a snapshot
+     */
+    private void flushPending() {
+        int[] ops, colors;
+        int count;
+        boolean compact;
+
+        synchronized (this) {
+            mFlushScheduled = false;
+            if (!mLoaded || (mPendingCount == 0 && !mNeedsCompaction))
+                return;
+
+            compact = mNeedsCompaction || mLogRecords + mPendingCount > mRecent.length * COMPACT_FACTOR;
+            if (compact) {
+                // snapshot replaying to current state: favorites and recents, oldest first
+                count = mFavoriteCount + mRecentCount;
+                ops = new int[count];
+                colors = new int[count];
+                int n = 0;
+                for (int i = mFavoriteCount - 1; i >= 0; i--, n++) {
+                    ops[n] = OP_FAVORITE;
+                    colors[n] = mFavorites[i];
+                }
+                for (int i = mRecentCount - 1; i >= 0; i--, n++) {
+                    ops[n] = OP_RECENT;
+                    colors[n] = mRecent[(mRecentHead + i) % mRecent.length];
+                }
+            } else {
+                count = mPendingCount;
+                ops = new int[count];
+                colors = new int[count];
+                System.arraycopy(mPendingOps, 0, ops, 0, count);
+                System.arraycopy(mPendingColors, 0, colors, 0, count);
+            }
+            mPendingCount = 0;
+            mNeedsCompaction = false;
+        }
+
+        synchronized (mFileLock) {
+            try {
+                if (compact) {
+                    writeSnapshot(ops, colors, count);
+                    setLogRecords(count, false);
+                } else {
+                    append(ops, colors, count);
+                    setLogRecords(count, true);
+                }
+            } catch (IOException e) {
+                // in-memory state is the truth, rewrite it all on retry
+                synchronized (this) {
+                    mNeedsCompaction = true;
+                    mRetryDelay = Math.min(Math.max(mRetryDelay * 2, mFlushDelay), MAX_RETRY_DELAY);
+                    scheduleFlush(mRetryDelay);
+                }
+            }
+        }
+    }
+
+    private synchronized void setLogRecords(int count, boolean appended) {
+        mLogRecords = appended ? mLogRecords + count : count;
+        mRetryDelay = 0;
+    }
+
+    private byte[] readFile() throws IOException {
+        if (!mFile.exists())
+            return null;
+
+        InputStream in = new FileInputStream(mFile);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream((int)mFile.length());
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) > 0)
+                out.write(buffer, 0, read);
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+
+    private void append(int[] ops, int[] colors, int count) throws IOException {
+        FileOutputStream out = new FileOutputStream(mFile, true);
+        try {
+            out.write(encode(ops, colors, count, false));
+            out.getFD().sync();
+        } finally {
+            out.close();
+        }
+    }
+
+    private void writeSnapshot(int[] ops, int[] colors, int count) throws IOException {
+        // write aside and rename, so a crash leaves either the old or the new file
+        File tmp = new File(mFile.getPath() + ".tmp");
+        FileOutputStream out = new FileOutputStream(tmp);
+        try {
+            out.write(encode(ops, colors, count, true));
+            out.getFD().sync();
+        } finally {
+            out.close();
+        }
+        if (!tmp.renameTo(mFile))
+            throw new IOException("Cannot replace " + mFile);
+    }
+
+    private static byte[] encode(int[] ops, int[] colors, int count, boolean header) {
+        ByteBuffer buffer = ByteBuffer.allocate((header ? HEADER_SIZE : 0) + count * RECORD_SIZE);
+        if (header) {
+            buffer.putInt(MAGIC);
+            buffer.putInt(VERSION);
+        }
+        CRC32 crc = new CRC32();
+        for (int i = 0; i < count; i++) {
+            buffer.putInt(ops[i]);
+            buffer.putInt(colors[i]);
+            buffer.putInt(checksum(crc, ops[i], colors[i]));
+        }
+        return buffer.array();
+    }
+
+    private static int checksum(CRC32 crc, int op, int color) {
+        crc.reset();
+        for (int shift = 24; shift >= 0; shift -= 8)
+            crc.update(op >>> shift);
+        for (int shift = 24; shift >= 0; shift -= 8)
+            crc.update(color >>> shift);
+        return (int)crc.getValue();
+    }
+}
@@ -0,0 +1,287 @@
+package com.github.mata1.simpledroidcolorpicker.utils;
+
+/**
+ * Wide-gamut and high-precision color utilities class. Colors are packed into a long with a color space tag,
+ * in the same layout as {@code android.graphics.Color} color longs on API 26+, so they can be handed to the
+ * platform as they are:
+ * <ul>
+ *     <li>{@link #SRGB}: 8-bit ARGB int in the upper 32 bits, color space 0 in the lower bits</li>
+ *     <li>other color spaces: red, green, blue as 16-bit half floats, 10-bit alpha, 6-bit color space id</li>
+ * </ul>
+ * Conversions work on primitives only, nothing is boxed or allocated
+ */
+public class ColorLongUtils {
+
+    /** sRGB, 8 bits per channel */
+    public static final int SRGB = 0;
+    /** sRGB primaries and transfer function, half float channels, values outside 0..1 allowed */
+    public static final int EXTENDED_SRGB = 2;
+    /** Display P3 primaries with sRGB transfer function, half float channels */
+    public static final int DISPLAY_P3 = 7;
+
+    // linear sRGB <-> linear Display P3, D65
+    private static final float[] SRGB_TO_P3 = {
+            0.8224621f, 0.1775380f, 0.0000000f,
+            0.0331941f, 0.9668058f, 0.0000000f,
+            0.0170827f, 0.0723974f, 0.9105199f
+    };
+    private static final float[] P3_TO_SRGB = {
+            1.2249401f, -0.2249404f, 0.0000000f,
+            -0.0420569f, 1.0420571f, 0.0000000f,
+            -0.0196376f, -0.0786361f, 1.0982735f
+    };
+
+    /**
+     * Pack color components into color long
+     * @param red red component, in color space coordinates
+     * @param green green component, in color space coordinates
+     * @param blue blue component, in color space coordinates
+     * @param alpha alpha, clamped to 0..1
+     * @param colorSpace color space id
+     * @return packed color long
+     */
+    public static long pack(float red, float green, float blue, float alpha, int colorSpace) {
+        checkColorSpace(colorSpace);
+
+        if (colorSpace == SRGB) {
+            int color = (toByte(alpha) << 24) | (toByte(red) << 16) | (toByte(green) << 8) | toByte(blue);
+            return (color & 0xFFFFFFFFL) << 32;
+        }
+
+        int a = (int)(Utils.clamp(alpha, 0, 1) * 1023 + 0.5f);
+        return ((toHalf(red) & 0xFFFFL) << 48) | ((toHalf(green) & 0xFFFFL) << 32) | ((toHalf(blue) & 0xFFFFL) << 16)
+                | (a << 6) | colorSpace;
+    }
+
+    /**
+     * Pack 8-bit ARGB color into sRGB color long
+     * @param color ARGB color
+     * @return packed color long
+     */
+    public static long pack(int color) {
+        return (color & 0xFFFFFFFFL) << 32;
+    }
+
+    /**
+     * Get color space id of color long
+     * @param color color long
+     * @return color space id
+     */
+    public static int colorSpace(long color) {
+        return (int)(color & 0x3F);
+    }
+
+    /**
+     * Get red component of color long, in its color space
+     * @param color color long
+     * @return red component
+     */
+    public static float red(long color) {
+        if (colorSpace(color) == SRGB)
+            return ((color >> 48) & 0xFF) / 255f;
+        return toFloat((short)(color >> 48));
+    }
+
+    /**
+     * Get green component of color long, in its color space
+     * @param color color long
+     * @return green component
+     */
+    public static float green(long color) {
+        if (colorSpace(color) == SRGB)
+            return ((color >> 40) & 0xFF) / 255f;
+        return toFloat((short)(color >> 32));
+    }
+
+    /**
+     * Get blue component of color long, in its color space
+     * @param color color long
+     * @return blue component
+     */
+    public static float blue(long color) {
+        if (colorSpace(color) == SRGB)
+            return ((color >> 32) & 0xFF) / 255f;
+        return toFloat((short)(color >> 16));
+    }
+
+    /**
+     * Get alpha of color long
+     * @param color color long
+     * @return alpha, 0..1
+     */
+    public static float alpha(long color) {
+        if (colorSpace(color) == SRGB)
+            return ((color >> 56) & 0xFF) / 255f;
+        return ((color >> 6) & 0x3FF) / 1023f;
+    }
+
+    /**
+     * Convert color long to 8-bit ARGB color, colors outside sRGB gamut are clamped
+     * @param color color long
+     * @return ARGB color
+     */
+    public static int toColor(long color) {
+        if (colorSpace(color) == SRGB)
+            return (int)(color >>> 32);
+        return (int)(convert(color, SRGB) >>> 32);
+    }
+
+    /**
+     * Convert color long to another color space
+     * @param color color long
+     * @param colorSpace destination color space id
+     * @return color long in destination color space
+     */
+    public static long convert(long color, int colorSpace) {
+        checkColorSpace(colorSpace);
+
+        int src = colorSpace(color);
+        float r = red(color);
+        float g = green(color);
+        float b = blue(color);
+        float a = alpha(color);
+        if (isP3(src) == isP3(colorSpace))
+            return pack(r, g, b, a, colorSpace); // same primaries and transfer function
+
+        float[] m = isP3(src) ? P3_TO_SRGB : SRGB_TO_P3;
+        float lr = toLinear(r), lg = toLinear(g), lb = toLinear(b);
+        return pack(
+                fromLinear(m[0] * lr + m[1] * lg + m[2] * lb), // red
+                fromLinear(m[3] * lr + m[4] * lg + m[5] * lb), // green
+                fromLinear(m[6] * lr + m[7] * lg + m[8] * lb), // blue
+                a, colorSpace);
+    }
+
+    /**
+     * Convert HSV components to color long without 8-bit quantization.
+     * HSV is taken in sRGB, the color is expressed in given color space
+     * @param hue hue angle in degrees, any value is wrapped to 0..360
+     * @param saturation color saturation, clamped to 0..1
+     * @param value color value, clamped to 0..1
+     * @param alpha alpha, clamped to 0..1
+     * @param colorSpace color space id
+     * @return packed color long
+     */
+    public static long HSVToColorLong(float hue, float saturation, float value, float alpha, int colorSpace) {
+        float h = ColorUtils.wrapHue(hue) / 60;
+        float s = Utils.clamp(saturation, 0, 1);
+        float v = Utils.clamp(value, 0, 1);
+
+        long color = pack(
+                ColorUtils.HSVChannel(h, s, v, 0),
+                ColorUtils.HSVChannel(h, s, v, 1),
+                ColorUtils.HSVChannel(h, s, v, 2),
+                alpha, colorSpace == SRGB ? SRGB : EXTENDED_SRGB);
+        return isP3(colorSpace) ? convert(color, colorSpace) : color;
+    }
+
+    /**
+     * Extract HSV components of color long without 8-bit quantization.
+     * Color is converted to sRGB first, components outside sRGB gamut are clamped
+     * @param color color long
+     * @param hsv output array, hue 0..360, saturation and value 0..1, length >= 3
+     */
+    public static void colorLongToHSV(long color, float[] hsv) {
+        if (isP3(colorSpace(color)))
+            color = convert(color, EXTENDED_SRGB);
+
+        float r = Utils.clamp(red(color), 0, 1);
+        float g = Utils.clamp(green(color), 0, 1);
+        float b = Utils.clamp(blue(color), 0, 1);
+        float max = Math.max(r, Math.max(g, b));
+        float delta = max - Math.min(r, Math.min(g, b));
+
+        float hue;
+        if (delta == 0)
+            hue = 0;
+        else if (max == r)
+            hue = 60 * (g - b) / delta;
+        else if (max == g)
+            hue = 60 * (b - r) / delta + 120;
+        else
+            hue = 60 * (r - g) / delta + 240;
+
+        hsv[0] = hue < 0 ? hue + 360 : hue;
+        hsv[1] = max == 0 ? 0 : delta / max;
+        hsv[2] = max;
+    }
+
+    /**
+     * Convert float to IEEE 754 half float, rounding to nearest even
+     * @param f float value
+     * @return half float bits
+     */
+    public static short toHalf(float f) {
+        int bits = Float.floatToRawIntBits(f);
+        int sign = (bits >>> 16) & 0x8000;
+        int abs = bits & 0x7FFFFFFF;
+
+        if (abs >= 0x7F800000) // infinity or NaN
+            return (short)(sign | 0x7C00 | (abs > 0x7F800000 ? 0x200 : 0));
+        if (abs >= 0x477FF000) // overflows to infinity
+            return (short)(sign | 0x7C00);
+        if (abs < 0x38800000) { // subnormal half or zero
+            if (abs < 0x33000000)
+                return (short)sign;
+            int shift = 126 - (abs >>> 23);
+            int mantissa = (abs & 0x7FFFFF) | 0x800000;
+            int half = mantissa >>> shift;
+            int rest = mantissa & ((1 << shift) - 1);
+            int halfway = 1 << (shift - 1);
+            if (rest > halfway || (rest == halfway && (half & 1) != 0))
+                half++;
+            return (short)(sign | half);
+        }
+
+        // normal, rebias exponent and round mantissa to nearest even
+        int half = ((abs - 0x38000000) >>> 13);
+        int rest = abs & 0x1FFF;
+        if (rest > 0x1000 || (rest == 0x1000 && (half & 1) != 0))
+            half++;
+        return (short)(sign | half);
+    }
+
+    /**
+     * Convert IEEE 754 half float to float
+     * @param h half float bits
+     * @return float value
+     */
+    public static float toFloat(short h) {
+        int bits = h & 0xFFFF;
+        int sign = (bits & 0x8000) << 16;
+        int exponent = (bits >>> 10) & 0x1F;
+        int mantissa = bits & 0x3FF;
+
+        if (exponent == 0x1F) // infinity or NaN
+            return Float.intBitsToFloat(sign | 0x7F800000 | (mantissa << 13));
+        if (exponent == 0) { // subnormal or zero
+            float f = mantissa / 16777216f; // mantissa * 2^-24
+            return sign == 0 ? f : -f;
+        }
+        return Float.intBitsToFloat(sign | ((exponent + 112) << 23) | (mantissa << 13));
+    }
+
+    private static boolean isP3(int colorSpace) {
+        return colorSpace == DISPLAY_P3;
+    }
+
+    private static void checkColorSpace(int colorSpace) {
+        if (colorSpace != SRGB && colorSpace != EXTENDED_SRGB && colorSpace != DISPLAY_P3)
+            throw new IllegalArgumentException("Unsupported color space " + colorSpace);
+    }
+
+    private static int toByte(float f) {
+        return (int)(Utils.clamp(f, 0, 1) * 255 + 0.5f);
+    }
+
+    // sRGB transfer function, mirrored for negative extended values
+    private static float toLinear(float c) {
+        float l = (float)ColorSpaceUtils.decode(Math.abs(c));
+        return c < 0 ? -l : l;
+    }
+
+    private static float fromLinear(float l) {
+        float c = (float)ColorSpaceUtils.encode(Math.abs(l));
+        return l < 0 ? -c : c;
+    }
+}
@@ -0,0 +1,208 @@
+package com.github.mata1.simpledroidcolorpicker.utils;
+
+import android.view.Choreographer;
+
+import com.github.mata1.simpledroidcolorpicker.interfaces.OnColorModelChangedListener;
+
+import java.util.ArrayList;
+
+/**
+ * Observable HSV and alpha color state, shared by any number of linked pickers.
+ * Every change bumps the model version right away, while listeners are notified once per frame
+ * with the channels changed since their last notification, so pickers only rebuild what depends on them.
+ * Must be used from the main thread.
+ */
+public class ColorModel {
+
+    public static final int CHANNEL_HUE = 1;
+    public static final int CHANNEL_SATURATION = 2;
+    public static final int CHANNEL_VALUE = 4;
+    public static final int CHANNEL_ALPHA = 8;
+    public static final int CHANNELS_HSV = CHANNEL_HUE | CHANNEL_SATURATION | CHANNEL_VALUE;
+    public static final int CHANNELS_ALL = CHANNELS_HSV | CHANNEL_ALPHA;
+
+    private float mHue, mSat, mVal, mAlpha;
+    private long mVersion;
+    private final float[] mHSVBuffer = new float[3]; // scratch buffer for color conversions
+
+    private final ArrayList<OnColorModelChangedListener> mListeners;
+    private OnColorModelChangedListener[] mDispatchListeners; // snapshot, rebuilt when listeners change
+
+    private final Choreographer.FrameCallback mFrameCallback;
+    private int mPendingChannels;
+    private boolean mScheduled;
+
+    public ColorModel() {
+        this(0, 1, 1, 1);
+    }
+
+    /**
+     * Create model with initial color
+     * @param hue hue in degrees
+     * @param sat saturation, 0..1
+     * @param val value, 0..1
+     * @param alpha alpha, 0..1
+     */
+    public ColorModel(float hue, float sat, float val, float alpha) {
+        mHue = Utils.normalizeAngle(hue);
+        mSat = Utils.clamp(sat, 0, 1);
+        mVal = Utils.clamp(val, 0, 1);
+        mAlpha = Utils.clamp(alpha, 0, 1);
+
+        mListeners = new ArrayList<OnColorModelChangedListener>();
+        mFrameCallback = new Choreographer.FrameCallback() {
+            @Override
+            public void doFrame(long frameTimeNanos) {
+                mScheduled = false;
+                dispatchPending();
+            }
+        };
+    }
+
+    /**
+     * Set channels of model color, other channels are left as they are
+     * @param hue hue in degrees
+     * @param sat saturation, 0..1
+     * @param val value, 0..1
+     * @param alpha alpha, 0..1
+     * @param channels channels to set, combination of CHANNEL_ flags
+     */
+    public void set(float hue, float sat, float val, float alpha, int channels) {
+        int changed = 0;
+        if ((channels & CHANNEL_HUE) != 0 && (hue = Utils.normalizeAngle(hue)) != mHue) {
+            mHue = hue;
+            changed |= CHANNEL_HUE;
+        }
+        if ((channels & CHANNEL_SATURATION) != 0 && (sat = Utils.clamp(sat, 0, 1)) != mSat) {
+            mSat = sat;
+            changed |= CHANNEL_SATURATION;
+        }
+        if ((channels & CHANNEL_VALUE) != 0 && (val = Utils.clamp(val, 0, 1)) != mVal) {
+            mVal = val;
+            changed |= CHANNEL_VALUE;
+        }
+        if ((channels & CHANNEL_ALPHA) != 0 && (alpha = Utils.clamp(alpha, 0, 1)) != mAlpha) {
+            mAlpha = alpha;
+            changed |= CHANNEL_ALPHA;
+        }
+
+        if (changed == 0)
+            return;
+
+        mVersion++;
+        mPendingChannels |= changed;
+        if (!mScheduled && !mListeners.isEmpty()) {
+            mScheduled = true;
+            Choreographer.getInstance().postFrameCallback(mFrameCallback);
+        }
+    }
+
+    /**
+     * Set model color from HSV components, alpha is left as it is
+     * @param hue hue in degrees
+     * @param sat saturation, 0..1
+     * @param val value, 0..1
+     */
+    public void setHSV(float hue, float sat, float val) {
+        set(hue, sat, val, 0, CHANNELS_HSV);
+    }
+
+    /**
+     * Set model alpha
+     * @param alpha alpha, 0..1
+     */
+    public void setAlpha(float alpha) {
+        set(0, 0, 0, alpha, CHANNEL_ALPHA);
+    }
+
+    /**
+     * Set model color, including alpha
+     * @param color ARGB color
+     */
+    public void setColor(int color) {
+        ColorUtils.colorToHSV(color, mHSVBuffer);
+        set(mHSVBuffer[0], mHSVBuffer[1], mHSVBuffer[2], ((color >>> 24) & 0xFF) / 255f, CHANNELS_ALL);
+    }
+
+    /**
+     * Notify listeners of pending changes now instead of on next frame
+     */
+    public void dispatchPending() {
+        if (mScheduled) {
+            mScheduled = false;
+            Choreographer.getInstance().removeFrameCallback(mFrameCallback);
+        }
+
+        int channels = mPendingChannels;
+        mPendingChannels = 0;
+        if (channels == 0)
+            return;
+
+        if (mDispatchListeners == null)
+            mDispatchListeners = mListeners.toArray(new OnColorModelChangedListener[mListeners.size()]);
+        for (OnColorModelChangedListener listener : mDispatchListeners)
+            listener.colorModelChanged(this, channels);
+    }
+
+    /**
+     * Add listener notified of model changes
+     * @param listener color model changed listener
+     */
+    public void addListener(OnColorModelChangedListener listener) {
+        if (!mListeners.contains(listener)) {
+            mListeners.add(listener);
+            mDispatchListeners = null;
+        }
+    }
+
+    /**
+     * Remove listener notified of model changes
+     * @param listener color model changed listener
+     */
+    public void removeListener(OnColorModelChangedListener listener) {
+        if (mListeners.remove(listener))
+            mDispatchListeners = null;
+    }
+
+    /**
+     * Get model version, incremented on every change
+     * @return model version
+     */
+    public long getVersion() {
+        return mVersion;
+    }
+
+    public float getHue() {
+        return mHue;
+    }
+
+    public float getSaturation() {
+        return mSat;
+    }
+
+    public float getValue() {
+        return mVal;
+    }
+
+    public float getAlpha() {
+        return mAlpha;
+    }
+
+    /**
+     * Get model color as HSV components
+     * @param hsv output array, length >= 3
+     */
+    public void getHSV(float[] hsv) {
+        hsv[0] = mHue;
+        hsv[1] = mSat;
+        hsv[2] = mVal;
+    }
+
+    /**
+     * Get model color, including alpha
+     * @return ARGB color
+     */
+    public int getColor() {
+        return (Math.round(mAlpha * 255) << 24) | (ColorUtils.getColorFromHSV(mHue, mSat, mVal) & 0x00FFFFFF);
+    }
+}
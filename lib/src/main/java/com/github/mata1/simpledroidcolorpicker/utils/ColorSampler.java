@@ -0,0 +1,159 @@
+package com.github.mata1.simpledroidcolorpicker.utils;
+
+import java.util.Arrays;
+
+/**
+ * Samples average and median colors of rectangles within a block of ARGB pixels.
+ * Per-channel integral images (summed area tables) are built once, after which the average of any rectangle
+ * takes four lookups per channel whatever its size. Medians are per-channel medians from 256-bin histograms.
+ * Alpha is ignored and sampled colors are opaque.
+ */
+public class ColorSampler {
+
+    /** largest pixel count whose channel sums still fit in ints */
+    public static final int MAX_PIXELS = Integer.MAX_VALUE / 255;
+
+    private final int[] mPixels;
+    private final int mWidth, mHeight;
+    private final int[] mSumR, mSumG, mSumB; // (width + 1) * (height + 1), first row and column zero
+    private final int[] mHistogram; // scratch, 256 bins per channel
+
+    /**
+     * Create sampler over pixels, the array is kept and must not change
+     * @param pixels ARGB pixels, row major without padding
+     * @param width width in pixels
+     * @param height height in pixels
+     */
+    public ColorSampler(int[] pixels, int width, int height) {
+        if ((long)width * height > MAX_PIXELS || pixels.length < width * height)
+            throw new IllegalArgumentException("Invalid sampler size " + width + "x" + height);
+
+        mPixels = pixels;
+        mWidth = width;
+        mHeight = height;
+
+        int stride = width + 1;
+        int size = stride * (height + 1);
+        mSumR = new int[size];
+        mSumG = new int[size];
+        mSumB = new int[size];
+        mHistogram = new int[256 * 3];
+
+        // each entry sums the pixels above and left of it: row prefix sum plus entry above
+        for (int y = 0; y < height; y++) {
+            int rowR = 0, rowG = 0, rowB = 0;
+            int above = y * stride + 1;
+            int at = above + stride;
+            int p = y * width;
+            for (int x = 0; x < width; x++) {
+                int c = pixels[p + x];
+                rowR += (c >> 16) & 0xFF;
+                rowG += (c >> 8) & 0xFF;
+                rowB += c & 0xFF;
+                mSumR[at + x] = mSumR[above + x] + rowR;
+                mSumG[at + x] = mSumG[above + x] + rowG;
+                mSumB[at + x] = mSumB[above + x] + rowB;
+            }
+        }
+    }
+
+    public int getWidth() {
+        return mWidth;
+    }
+
+    public int getHeight() {
+        return mHeight;
+    }
+
+    /**
+     * Get average color of rectangle, clipped to sampler bounds
+     * @param left left edge, inclusive
+     * @param top top edge, inclusive
+     * @param right right edge, exclusive
+     * @param bottom bottom edge, exclusive
+     * @return opaque average color, 0 if rectangle is outside bounds
+     */
+    public int getAverageColor(int left, int top, int right, int bottom) {
+        left = Math.max(left, 0);
+        top = Math.max(top, 0);
+        right = Math.min(right, mWidth);
+        bottom = Math.min(bottom, mHeight);
+        if (left >= right || top >= bottom)
+            return 0;
+
+        int count = (right - left) * (bottom - top);
+        int r = rectSum(mSumR, left, top, right, bottom);
+        int g = rectSum(mSumG, left, top, right, bottom);
+        int b = rectSum(mSumB, left, top, right, bottom);
+        return 0xFF000000 | (divRound(r, count) << 16) | (divRound(g, count) << 8) | divRound(b, count);
+    }
+
+    /**
+     * Get per-channel median color of rectangle, clipped to sampler bounds
+     * @param left left edge, inclusive
+     * @param top top edge, inclusive
+     * @param right right edge, exclusive
+     * @param bottom bottom edge, exclusive
+     * @return opaque median color, 0 if rectangle is outside bounds
+     */
+    public int getMedianColor(int left, int top, int right, int bottom) {
+        left = Math.max(left, 0);
+        top = Math.max(top, 0);
+        right = Math.min(right, mWidth);
+        bottom = Math.min(bottom, mHeight);
+        if (left >= right || top >= bottom)
+            return 0;
+
+        int[] hist = mHistogram;
+        Arrays.fill(hist, 0);
+        for (int y = top; y < bottom; y++)
+            accumulateHistogram(mPixels, y * mWidth + left, right - left, hist);
+        return medianColor(hist, (right - left) * (bottom - top));
+    }
+
+    private int rectSum(int[] sum, int left, int top, int right, int bottom) {
+        int stride = mWidth + 1;
+        return sum[bottom * stride + right] - sum[top * stride + right]
+                - sum[bottom * stride + left] + sum[top * stride + left];
+    }
+
+    private static int divRound(int sum, int count) {
+        return (int)(((long)sum * 2 + count) / (count * 2L));
+    }
+
+    /**
+     * Add pixel run to per-channel histograms
+     * @param pixels ARGB pixels
+     * @param offset first pixel
+     * @param count number of pixels
+     * @param hist histograms, red bins 0..255, green 256..511, blue 512..767
+     */
+    static void accumulateHistogram(int[] pixels, int offset, int count, int[] hist) {
+        for (int i = offset, end = offset + count; i < end; i++) {
+            int c = pixels[i];
+            hist[(c >> 16) & 0xFF]++;
+            hist[256 + ((c >> 8) & 0xFF)]++;
+            hist[512 + (c & 0xFF)]++;
+        }
+    }
+
+    /**
+     * Get per-channel median color from histograms
+     * @param hist histograms, red bins 0..255, green 256..511, blue 512..767
+     * @param count number of pixels in each channel histogram
+     * @return opaque median color
+     */
+    static int medianColor(int[] hist, long count) {
+        return 0xFF000000 | (median(hist, 0, count) << 16) | (median(hist, 256, count) << 8) | median(hist, 512, count);
+    }
+
+    private static int median(int[] hist, int offset, long count) {
+        long half = (count + 1) / 2, seen = 0;
+        for (int i = 0; i < 256; i++) {
+            seen += hist[offset + i];
+            if (seen >= half)
+                return i;
+        }
+        return 255;
+    }
+}
@@ -0,0 +1,309 @@
+package com.github.mata1.simpledroidcolorpicker.utils;
+
+/**
+ * Perceptual color space utilities class. Conversions between packed sRGB colors and OKLab/OKLCH or CIELAB (D65).
+ * sRGB decoding uses a precomputed table, encoding a search over precomputed thresholds, and the
+ * linear sRGB to LMS/XYZ steps use fused matrices. Nothing allocates, results are written into caller arrays
+ */
+public class ColorSpaceUtils {
+
+    private static final int OPAQUE = 0xFF000000;
+
+    private static final float[] SRGB_TO_LINEAR = new float[256];
+    private static final float[] LINEAR_THRESHOLDS = new float[255]; // linear value halfway between 8-bit steps
+
+    private static final int HUE_STEPS = 3600; // hue mapping table resolution, 0.1 degree
+
+    // CIELAB constants, D65 white point folded into matrices
+    private static final float LAB_EPSILON = 216f / 24389f;
+    private static final float LAB_KAPPA = 24389f / 27f;
+    private static final float LAB_DELTA = 6f / 29f;
+
+    static {
+        for (int i = 0; i < 256; i++)
+            SRGB_TO_LINEAR[i] = (float)decode(i / 255.0);
+        for (int i = 0; i < 255; i++)
+            LINEAR_THRESHOLDS[i] = (float)decode((i + 0.5) / 255.0);
+    }
+
+    /**
+     * Decode 8-bit sRGB channel to linear light
+     * @param channel sRGB channel, 0..255
+     * @return linear channel, 0..1
+     */
+    public static float srgbToLinear(int channel) {
+        return SRGB_TO_LINEAR[channel & 0xFF];
+    }
+
+    /**
+     * Encode linear light to 8-bit sRGB channel, rounded to nearest and clamped
+     * @param linear linear channel
+     * @return sRGB channel, 0..255
+     */
+    public static int linearToSrgb(float linear) {
+        // binary search over the 255 thresholds, result is the number of thresholds below value
+        int lo = 0, hi = 255;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (LINEAR_THRESHOLDS[mid] < linear) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /*
+    OKLab / OKLCH
+     */
+
+    /**
+     * Convert color to OKLab
+     * @param color color
+     * @param lab output array, L 0..1, a and b roughly -0.4..0.4
+     */
+    public static void colorToOkLab(int color, float[] lab) {
+        linearToOkLab(SRGB_TO_LINEAR[(color >> 16) & 0xFF], SRGB_TO_LINEAR[(color >> 8) & 0xFF],
+                SRGB_TO_LINEAR[color & 0xFF], lab);
+    }
+
+    private static void linearToOkLab(float r, float g, float b, float[] lab) {
+        // linear sRGB -> LMS
+        float l = (float)Math.cbrt(0.4122214708f * r + 0.5363325363f * g + 0.0514459929f * b);
+        float m = (float)Math.cbrt(0.2119034982f * r + 0.6806995451f * g + 0.1073969566f * b);
+        float s = (float)Math.cbrt(0.0883024619f * r + 0.2817188376f * g + 0.6299787005f * b);
+
+        lab[0] = 0.2104542553f * l + 0.7936177850f * m - 0.0040720468f * s;
+        lab[1] = 1.9779984951f * l - 2.4285922050f * m + 0.4505937099f * s;
+        lab[2] = 0.0259040371f * l + 0.7827717662f * m - 0.8086757660f * s;
+    }
+
+    /**
+     * Convert OKLab to opaque color, out of gamut channels are clamped
+     * @param L lightness
+     * @param a green-red axis
+     * @param b blue-yellow axis
+     * @return opaque color
+     */
+    public static int okLabToColor(float L, float a, float b) {
+        float l = L + 0.3963377774f * a + 0.2158037573f * b;
+        float m = L - 0.1055613458f * a - 0.0638541728f * b;
+        float s = L - 0.0894841775f * a - 1.2914855480f * b;
+        l = l * l * l;
+        m = m * m * m;
+        s = s * s * s;
+
+        return pack(
+                linearToSrgb(4.0767416621f * l - 3.3077115913f * m + 0.2309699292f * s),
+                linearToSrgb(-1.2684380046f * l + 2.6097574011f * m - 0.3413193965f * s),
+                linearToSrgb(-0.0041960863f * l - 0.7034186147f * m + 1.7076147010f * s)
+        );
+    }
+
+    /**
+     * Convert color to OKLCH
+     * @param color color
+     * @param lch output array, L 0..1, chroma, hue 0..360
+     */
+    public static void colorToOkLch(int color, float[] lch) {
+        colorToOkLab(color, lch);
+        float a = lch[1];
+        float b = lch[2];
+        lch[1] = (float)Math.sqrt(a * a + b * b);
+        lch[2] = hueDeg(a, b);
+    }
+
+    /**
+     * Convert OKLCH to opaque color, out of gamut channels are clamped
+     * @param L lightness
+     * @param C chroma
+     * @param hue hue in degrees
+     * @return opaque color
+     */
+    public static int okLchToColor(float L, float C, float hue) {
+        double rad = Math.toRadians(hue);
+        return okLabToColor(L, C * (float)Math.cos(rad), C * (float)Math.sin(rad));
+    }
+
+    /*
+    CIELAB
+     */
+
+    /**
+     * Convert color to CIELAB, D65 white point
+     * @param color color
+     * @param lab output array, L 0..100, a and b roughly -128..127
+     */
+    public static void colorToLab(int color, float[] lab) {
+        float r = SRGB_TO_LINEAR[(color >> 16) & 0xFF];
+        float g = SRGB_TO_LINEAR[(color >> 8) & 0xFF];
+        float b = SRGB_TO_LINEAR[color & 0xFF];
+
+        // linear sRGB -> XYZ relative to white point
+        float fx = labF(0.4339532f * r + 0.3762192f * g + 0.1898276f * b);
+        float fy = labF(0.2126729f * r + 0.7151522f * g + 0.0721750f * b);
+        float fz = labF(0.0177566f * r + 0.1094680f * g + 0.8727754f * b);
+
+        lab[0] = 116 * fy - 16;
+        lab[1] = 500 * (fx - fy);
+        lab[2] = 200 * (fy - fz);
+    }
+
+    /**
+     * Convert CIELAB to opaque color, D65 white point, out of gamut channels are clamped
+     * @param L lightness
+     * @param a green-red axis
+     * @param b blue-yellow axis
+     * @return opaque color
+     */
+    public static int labToColor(float L, float a, float b) {
+        float fy = (L + 16) / 116;
+        float x = labFInverse(fy + a / 500);
+        float y = labFInverse(fy);
+        float z = labFInverse(fy - b / 200);
+
+        // XYZ relative to white point -> linear sRGB
+        return pack(
+                linearToSrgb(3.0799327f * x - 1.5371500f * y - 0.5428160f * z),
+                linearToSrgb(-0.9212352f * x + 1.8759900f * y + 0.0452439f * z),
+                linearToSrgb(0.0528871f * x - 0.2040210f * y + 1.1511470f * z)
+        );
+    }
+
+    /*
+    PICKER LAYOUT
+     */
+
+    /**
+     * Get perceptual hue of the fully saturated, bright color with given HSV hue.
+     * Perceptual hue is the OKLab distance travelled around the fully saturated hue ring, starting at red,
+     * scaled to 0..360, so equal steps look like equal color changes. OKLCH hue itself is not used,
+     * because it is not monotonic around the sRGB hue ring and squeezes the blues into a few degrees
+     * @param hue HSV hue in degrees
+     * @return perceptual hue in degrees, 0..360
+     */
+    public static float hsvHueToPerceptualHue(float hue) {
+        return lookupHue(HueMapping.HSV_TO_PERCEPTUAL, hue);
+    }
+
+    /**
+     * Get HSV hue of the fully saturated, bright color with given perceptual hue
+     * @see #hsvHueToPerceptualHue(float)
+     * @param hue perceptual hue in degrees
+     * @return HSV hue in degrees, 0..360
+     */
+    public static float perceptualHueToHSVHue(float hue) {
+        return lookupHue(HueMapping.PERCEPTUAL_TO_HSV, hue);
+    }
+
+    /**
+     * Fill array with hue ring colors evenly spaced by perceptual hue, first and last color being red
+     * @param colors output array
+     * @param saturation HSV saturation
+     * @param value HSV value
+     */
+    public static void getPerceptualHueRingColors(int[] colors, float saturation, float value) {
+        int n = colors.length;
+        for (int i = 0; i < n; i++)
+            colors[i] = ColorUtils.HSVToColor(perceptualHueToHSVHue(i / (n - 1f) * 360f), saturation, value);
+    }
+
+    /**
+     * Get OKLab lightness of gray with given HSV value, used to space value sliders perceptually
+     * @param value HSV value, 0..1
+     * @return lightness, 0..1
+     */
+    public static float valueToLightness(float value) {
+        return (float)Math.cbrt(decode(Utils.clamp(value, 0, 1)));
+    }
+
+    /**
+     * Get HSV value of gray with given OKLab lightness
+     * @param lightness lightness, 0..1
+     * @return HSV value, 0..1
+     */
+    public static float lightnessToValue(float lightness) {
+        float l = Utils.clamp(lightness, 0, 1);
+        return (float)encode(l * l * l);
+    }
+
+    /**
+     * Hue mapping tables between HSV and perceptual hue, built on first use
+     */
+    private static class HueMapping {
+        static final float[] HSV_TO_PERCEPTUAL = new float[HUE_STEPS + 1];
+        static final float[] PERCEPTUAL_TO_HSV = new float[HUE_STEPS + 1];
+
+        static {
+            // OKLab distance travelled around the hue ring, strictly increasing
+            float[] lab = new float[3];
+            float prevL = 0, prevA = 0, prevB = 0;
+            double distance = 0;
+            double[] cumulative = new double[HUE_STEPS + 1];
+            for (int i = 0; i <= HUE_STEPS; i++) {
+                // fully saturated, bright hue without 8-bit quantization
+                double h = i * 6.0 / HUE_STEPS;
+                int sector = (int)h % 6;
+                double f = h - (int)h;
+                double r = sector == 0 || sector == 5 ? 1 : sector == 1 ? 1 - f : sector == 4 ? f : 0;
+                double g = sector == 1 || sector == 2 ? 1 : sector == 0 ? f : sector == 3 ? 1 - f : 0;
+                double b = sector == 3 || sector == 4 ? 1 : sector == 2 ? f : sector == 5 ? 1 - f : 0;
+                linearToOkLab((float)decode(r), (float)decode(g), (float)decode(b), lab);
+
+                if (i > 0) {
+                    float dL = lab[0] - prevL, dA = lab[1] - prevA, dB = lab[2] - prevB;
+                    distance += Math.sqrt(dL * dL + dA * dA + dB * dB);
+                }
+                cumulative[i] = distance;
+                prevL = lab[0];
+                prevA = lab[1];
+                prevB = lab[2];
+            }
+
+            for (int i = 0; i <= HUE_STEPS; i++)
+                HSV_TO_PERCEPTUAL[i] = (float)(cumulative[i] / distance * 360);
+
+            // invert by walking the monotonic table
+            int j = 0;
+            for (int i = 0; i <= HUE_STEPS; i++) {
+                float target = i * 360f / HUE_STEPS;
+                while (j < HUE_STEPS - 1 && HSV_TO_PERCEPTUAL[j + 1] < target)
+                    j++;
+                float span = HSV_TO_PERCEPTUAL[j + 1] - HSV_TO_PERCEPTUAL[j];
+                float f = Utils.clamp((target - HSV_TO_PERCEPTUAL[j]) / span, 0, 1);
+                PERCEPTUAL_TO_HSV[i] = (j + f) * 360f / HUE_STEPS;
+            }
+        }
+    }
+
+    private static float lookupHue(float[] table, float hue) {
+        float h = hue % 360;
+        if (h < 0) h += 360;
+        float pos = h * HUE_STEPS / 360;
+        int i = Math.min((int)pos, HUE_STEPS - 1);
+        return table[i] + (table[i + 1] - table[i]) * (pos - i);
+    }
+
+    private static float hueDeg(float a, float b) {
+        float h = (float)Math.toDegrees(Math.atan2(b, a));
+        return h < 0 ? h + 360 : h;
+    }
+
+    private static float labF(float t) {
+        return t > LAB_EPSILON ? (float)Math.cbrt(t) : (LAB_KAPPA * t + 16) / 116;
+    }
+
+    private static float labFInverse(float t) {
+        return t > LAB_DELTA ? t * t * t : (116 * t - 16) / LAB_KAPPA;
+    }
+
+    static double decode(double c) {
+        return c <= 0.04045 ? c / 12.92 : Math.pow((c + 0.055) / 1.055, 2.4);
+    }
+
+    static double encode(double l) {
+        return l <= 0.0031308 ? l * 12.92 : 1.055 * Math.pow(l, 1 / 2.4) - 0.055;
+    }
+
+    private static int pack(int r, int g, int b) {
+        return OPAQUE | (r << 16) | (g << 8) | b;
+    }
+}
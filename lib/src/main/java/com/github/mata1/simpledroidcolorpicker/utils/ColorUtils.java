@@ -1,12 +1,60 @@
 package com.github.mata1.simpledroidcolorpicker.utils;
 
-import android.graphics.Color;
-
 /**
- * Color utilities class. Helper methods for easier HSV <-> RGB conversion
+ * Color utilities class. Helper methods for easier HSV <-> RGB conversion.
+ * All conversions are done in pure Java on packed ARGB ints and never allocate,
+ * except for the convenience methods returning new arrays.
  */
 public class ColorUtils {
 
+    /**
+     * How HSV is converted to RGB
+     */
+    public enum ConversionMode {
+        /** exact conversion */
+        EXACT,
+        /**
+         * precomputed hue table with fixed-point saturation/value blending,
+         * at most 1 off per 8-bit channel compared to exact conversion
+         */
+        LOOKUP_TABLE
+    }
+
+    private static final int OPAQUE = 0xFF000000;
+
+    private static final int HUE_STEPS = 3600; // lookup table resolution, 0.1 degree
+    private static final int FIXED_SHIFT = 12; // fixed-point precision of lookup table blending
+    private static final int FIXED_ONE = 1 << FIXED_SHIFT;
+
+    // which of value, p, q and t is red, green and blue in each 60 degree hue sector
+    private static final int CHANNEL_V = 0, CHANNEL_P = 1, CHANNEL_Q = 2, CHANNEL_T = 3;
+    private static final int[] SECTOR_CHANNELS = {
+            CHANNEL_V, CHANNEL_T, CHANNEL_P,
+            CHANNEL_Q, CHANNEL_V, CHANNEL_P,
+            CHANNEL_P, CHANNEL_V, CHANNEL_T,
+            CHANNEL_P, CHANNEL_Q, CHANNEL_V,
+            CHANNEL_T, CHANNEL_P, CHANNEL_V,
+            CHANNEL_V, CHANNEL_P, CHANNEL_Q
+    };
+
+    private static volatile ConversionMode sConversionMode = ConversionMode.EXACT;
+
+    /**
+     * Set how HSV is converted to RGB by all conversion methods, including the pickers
+     * @param mode conversion mode
+     */
+    public static void setConversionMode(ConversionMode mode) {
+        sConversionMode = mode;
+    }
+
+    /**
+     * Get how HSV is converted to RGB
+     * @return current conversion mode
+     */
+    public static ConversionMode getConversionMode() {
+        return sConversionMode;
+    }
+
     /**
      * Get color at specific hue angle
      * @param angle angle in degrees
@@ -24,8 +72,7 @@ public class ColorUtils {
      * @return color at specific hue angle, saturation and value
      */
     public static int getColorFromHSV(float angle, float saturation, float value) {
-        angle = Utils.normalizeAngle(angle);
-        return Color.HSVToColor(new float[]{angle, saturation, value});
+        return HSVToColor(angle, saturation, value);
     }
 
     /**
@@ -34,7 +81,7 @@ public class ColorUtils {
      * @return color from fraction
      */
     public static int getColorFromFraction(float fraction) {
-        return Color.HSVToColor(new float[] { fraction*360, 1, 1 });
+        return HSVToColor(fraction * 360, 1, 1);
     }
 
     /**
@@ -52,7 +99,11 @@ public class ColorUtils {
      * @return color hue value, 0..360
      */
     public static float getHueFromColor(int color) {
-        return getHSVFromColor(color)[0];
+        int r = (color >> 16) & 0xFF;
+        int g = (color >> 8) & 0xFF;
+        int b = color & 0xFF;
+        int max = Math.max(r, Math.max(g, b));
+        return getHue(r, g, b, max, max - Math.min(r, Math.min(g, b)));
     }
 
     /**
@@ -61,7 +112,11 @@ public class ColorUtils {
      * @return color saturation value, 0..1
      */
     public static float getSaturationFromColor(int color) {
-        return getHSVFromColor(color)[1];
+        int r = (color >> 16) & 0xFF;
+        int g = (color >> 8) & 0xFF;
+        int b = color & 0xFF;
+        int max = Math.max(r, Math.max(g, b));
+        return max == 0 ? 0 : (max - Math.min(r, Math.min(g, b))) / (float)max;
     }
 
     /**
@@ -70,7 +125,10 @@ public class ColorUtils {
      * @return color value, 0..1
      */
     public static float getValueFromColor(int color) {
-        return getHSVFromColor(color)[2];
+        int r = (color >> 16) & 0xFF;
+        int g = (color >> 8) & 0xFF;
+        int b = color & 0xFF;
+        return Math.max(r, Math.max(g, b)) / 255f;
     }
 
     /**
@@ -80,10 +138,132 @@ public class ColorUtils {
      */
     public static float[] getHSVFromColor(int color) {
         float hsv[] = new float[3];
-        Color.colorToHSV(color, hsv);
+        colorToHSV(color, hsv);
         return hsv;
     }
 
+    /**
+     * Extract all three HSV components of color in a single pass
+     * @param color color
+     * @param hsv output array, hue 0..360, saturation and value 0..1, length >= 3
+     */
+    public static void colorToHSV(int color, float[] hsv) {
+        int r = (color >> 16) & 0xFF;
+        int g = (color >> 8) & 0xFF;
+        int b = color & 0xFF;
+        int max = Math.max(r, Math.max(g, b));
+        int delta = max - Math.min(r, Math.min(g, b));
+
+        hsv[0] = getHue(r, g, b, max, delta);
+        hsv[1] = max == 0 ? 0 : delta / (float)max;
+        hsv[2] = max / 255f;
+    }
+
+    /**
+     * Convert HSV components to opaque color, using current conversion mode
+     * @param hue hue angle in degrees, any value is wrapped to 0..360
+     * @param saturation color saturation, clamped to 0..1
+     * @param value color value, clamped to 0..1
+     * @return opaque packed color
+     */
+    public static int HSVToColor(float hue, float saturation, float value) {
+        if (sConversionMode == ConversionMode.LOOKUP_TABLE)
+            return HSVToColorLookup(hue, saturation, value);
+        return HSVToColorExact(hue, saturation, value);
+    }
+
+    /**
+     * Convert HSV components to opaque color exactly
+     * @param hue hue angle in degrees, any value is wrapped to 0..360
+     * @param saturation color saturation, clamped to 0..1
+     * @param value color value, clamped to 0..1
+     * @return opaque packed color
+     */
+    public static int HSVToColorExact(float hue, float saturation, float value) {
+        float h = wrapHue(hue) / 60;
+        float s = Utils.clamp(saturation, 0, 1);
+        float v = Utils.clamp(value, 0, 1) * 255;
+        return pack(
+                Math.round(HSVChannel(h, s, v, 0)),
+                Math.round(HSVChannel(h, s, v, 1)),
+                Math.round(HSVChannel(h, s, v, 2)));
+    }
+
+    /**
+     * Wrap hue angle to 0..360 (exclusive)
+     * @param hue hue angle in degrees, any value
+     * @return wrapped hue
+     */
+    static float wrapHue(float hue) {
+        float h = hue % 360;
+        if (h < 0) h += 360;
+        if (h >= 360) h -= 360; // tiny negative hue rounds up to 360
+        return h;
+    }
+
+    /**
+     * Convert HSV to one RGB channel without rounding, shared by all HSV to RGB conversions
+     * @param h hue in 60 degree sectors, 0..6 (exclusive), see {@link #wrapHue(float)}
+     * @param s saturation, 0..1
+     * @param v value, in scale of result
+     * @param channel 0 for red, 1 for green, 2 for blue
+     * @return channel, 0..v
+     */
+    static float HSVChannel(float h, float s, float v, int channel) {
+        int sector = Math.min((int)h, 5);
+        float f = h - sector;
+        switch (SECTOR_CHANNELS[sector * 3 + channel]) {
+            case CHANNEL_V: return v;
+            case CHANNEL_P: return v * (1 - s);
+            case CHANNEL_Q: return v * (1 - s * f);
+            default: return v * (1 - s * (1 - f));
+        }
+    }
+
+    /**
+     * Convert HSV components to opaque color using precomputed hue table.
+     * Hue is quantized to 0.1 degree, saturation and value are blended in fixed point,
+     * each 8-bit channel is at most 1 off compared to {@link #HSVToColorExact(float, float, float)}
+     * @param hue hue angle in degrees, any value is wrapped to 0..360
+     * @param saturation color saturation, clamped to 0..1
+     * @param value color value, clamped to 0..1
+     * @return opaque packed color
+     */
+    public static int HSVToColorLookup(float hue, float saturation, float value) {
+        float h = wrapHue(hue);
+        int index = (int)(h * (HUE_STEPS / 360) + 0.5f);
+        if (index >= HUE_STEPS) index -= HUE_STEPS;
+        index *= 3;
+
+        // channel = value * (1 - saturation * (1 - pure hue channel))
+        long s = Math.round(Utils.clamp(saturation, 0, 1) * FIXED_ONE);
+        long v = Math.round(Utils.clamp(value, 0, 1) * 255 * 16);
+        int[] table = HueTable.TABLE;
+        int shift = FIXED_SHIFT * 2 + 4;
+        long round = 1L << (shift - 1);
+        long one = 1L << (FIXED_SHIFT * 2);
+
+        int r = (int)((v * (one - s * (FIXED_ONE - table[index])) + round) >> shift);
+        int g = (int)((v * (one - s * (FIXED_ONE - table[index + 1])) + round) >> shift);
+        int b = (int)((v * (one - s * (FIXED_ONE - table[index + 2])) + round) >> shift);
+        return pack(r, g, b);
+    }
+
+    /**
+     * Fully saturated and bright RGB channels for every hue step, in fixed point.
+     * Built on first use of lookup table conversion
+     */
+    private static class HueTable {
+        static final int[] TABLE = build();
+
+        private static int[] build() {
+            int[] table = new int[HUE_STEPS * 3];
+            for (int i = 0; i < HUE_STEPS * 3; i++)
+                table[i] = Math.round(HSVChannel((i / 3) * 6f / HUE_STEPS, 1, FIXED_ONE, i % 3));
+            return table;
+        }
+    }
+
     /**
      * Get hue ring color array
      * @param n number of colors in array
@@ -93,17 +273,45 @@ public class ColorUtils {
         int[] c = new int[n];
 
         for (int i = 0; i < n; i++)
-            c[i] = Color.HSVToColor(new float[]{(float)i / n * 360, 1, 1});
+            c[i] = HSVToColor((float)i / n * 360, 1, 1);
 
         return c;
     }
 
     public static int[] getHueRingColors(int n, float saturation, float value) {
         int[] c = new int[n];
+        getHueRingColors(c, saturation, value);
+        return c;
+    }
 
+    /**
+     * Fill array with evenly spaced hue ring colors, first and last color being red
+     * @param colors output array
+     * @param saturation color saturation
+     * @param value color value
+     */
+    public static void getHueRingColors(int[] colors, float saturation, float value) {
+        int n = colors.length;
         for (int i = 0; i < n; i++)
-            c[i] = getColorFromHSV(i / (n - 1f) * 360f, saturation, value);
+            colors[i] = HSVToColor(i / (n - 1f) * 360f, saturation, value);
+    }
 
-        return c;
+    static float getHue(int r, int g, int b, int max, int delta) {
+        if (delta == 0)
+            return 0;
+
+        float hue;
+        if (max == r)
+            hue = 60f * (g - b) / delta;
+        else if (max == g)
+            hue = 60f * (b - r) / delta + 120;
+        else
+            hue = 60f * (r - g) / delta + 240;
+
+        return hue < 0 ? hue + 360 : hue;
+    }
+
+    private static int pack(int r, int g, int b) {
+        return OPAQUE | (r << 16) | (g << 8) | b;
     }
 }
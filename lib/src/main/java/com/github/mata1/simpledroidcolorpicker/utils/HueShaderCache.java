@@ -0,0 +1,247 @@
+package com.github.mata1.simpledroidcolorpicker.utils;
+
+import android.graphics.LinearGradient;
+import android.graphics.Shader;
+import android.graphics.SweepGradient;
+
+/**
+ * Bounded LRU cache of hue gradient color stops and shaders, keyed by quantized saturation and value.
+ * Shared by ring and hue linear pickers, so dragging saturation or value sliders reuses shaders
+ * instead of creating a new native shader on every event. Keys are primitive longs kept in plain
+ * arrays, so lookups do not allocate. Perceptual variants space hues evenly by OKLab distance, see
+ * {@link ColorSpaceUtils#hsvHueToPerceptualHue(float)}.
+ */
+public class HueShaderCache {
+
+    public static final int DEFAULT_SIZE = 32;
+    public static final int HUE_STOPS = 7;
+    public static final int PERCEPTUAL_HUE_STOPS = 25; // perceptual spacing is not piecewise linear in RGB
+
+    private static final int LEVELS = 255; // saturation/value quantization steps
+
+    private static final long TYPE_COLORS = 1;
+    private static final long TYPE_SWEEP = 2;
+    private static final long TYPE_LINEAR = 3;
+    private static final long COORD_MASK = 0xFFFFF; // 20 bits per gradient coordinate
+    private static final long PERCEPTUAL = 1L << 60;
+
+    private static HueShaderCache sInstance;
+
+    private long[] mKeys;
+    private long[] mLastUsed;
+    private Object[] mValues;
+    private int mSize;
+    private long mClock;
+
+    private int mHits, mMisses;
+
+    /**
+     * Get cache instance shared by all pickers
+     * @return shared cache
+     */
+    public static synchronized HueShaderCache getInstance() {
+        if (sInstance == null)
+            sInstance = new HueShaderCache(DEFAULT_SIZE);
+        return sInstance;
+    }
+
+    public HueShaderCache(int maxSize) {
+        setMaxSize(maxSize);
+    }
+
+    /**
+     * Get hue ring color stops, red to red
+     * @param saturation color saturation
+     * @param value color value
+     * @return cached color array, must not be modified
+     */
+    public int[] getColors(float saturation, float value) {
+        return getColors(saturation, value, false);
+    }
+
+    /**
+     * Get hue ring color stops, red to red
+     * @param saturation color saturation
+     * @param value color value
+     * @param perceptual true to space hues evenly by OKLab distance
+     * @return cached color array, must not be modified
+     */
+    public synchronized int[] getColors(float saturation, float value, boolean perceptual) {
+        return getColors(saturation, value, perceptual, true);
+    }
+
+    private int[] getColors(float saturation, float value, boolean perceptual, boolean count) {
+        long key = (TYPE_COLORS << 56) | flag(perceptual) | quantize(saturation, value);
+        int index = indexOf(key, count);
+        if (index >= 0)
+            return (int[])mValues[index];
+
+        int[] colors;
+        if (perceptual) {
+            colors = new int[PERCEPTUAL_HUE_STOPS];
+            ColorSpaceUtils.getPerceptualHueRingColors(colors, dequantize(saturation), dequantize(value));
+        } else {
+            colors = ColorUtils.getHueRingColors(HUE_STOPS, dequantize(saturation), dequantize(value));
+        }
+        put(key, colors);
+        return colors;
+    }
+
+    /**
+     * Get sweep gradient around origin, as drawn by the ring picker
+     * @param saturation color saturation
+     * @param value color value
+     * @return cached shader
+     */
+    public Shader getSweepGradient(float saturation, float value) {
+        return getSweepGradient(saturation, value, false);
+    }
+
+    /**
+     * Get sweep gradient around origin, as drawn by the ring picker
+     * @param saturation color saturation
+     * @param value color value
+     * @param perceptual true to space hues evenly by OKLab distance
+     * @return cached shader
+     */
+    public synchronized Shader getSweepGradient(float saturation, float value, boolean perceptual) {
+        long key = (TYPE_SWEEP << 56) | flag(perceptual) | quantize(saturation, value);
+        int index = indexOf(key, true);
+        if (index >= 0)
+            return (Shader)mValues[index];
+
+        // stops lookup is part of this miss, not counted separately
+        Shader shader = new SweepGradient(0, 0, getColors(saturation, value, perceptual, false), null);
+        put(key, shader);
+        return shader;
+    }
+
+    /**
+     * Get horizontal hue gradient, as drawn by the hue linear picker
+     * @param left gradient start x coordinate
+     * @param right gradient end x coordinate
+     * @param saturation color saturation
+     * @param value color value
+     * @return cached shader
+     */
+    public Shader getLinearGradient(float left, float right, float saturation, float value) {
+        return getLinearGradient(left, right, saturation, value, false);
+    }
+
+    /**
+     * Get horizontal hue gradient, as drawn by the hue linear picker
+     * @param left gradient start x coordinate
+     * @param right gradient end x coordinate
+     * @param saturation color saturation
+     * @param value color value
+     * @param perceptual true to space hues evenly by OKLab distance
+     * @return cached shader
+     */
+    public synchronized Shader getLinearGradient(float left, float right, float saturation, float value,
+                                                 boolean perceptual) {
+        int l = Math.round(left);
+        int r = Math.round(right);
+        long key = (TYPE_LINEAR << 56) | flag(perceptual) | ((l & COORD_MASK) << 36) | ((r & COORD_MASK) << 16)
+                | quantize(saturation, value);
+        int index = indexOf(key, true);
+        if (index >= 0)
+            return (Shader)mValues[index];
+
+        Shader shader = new LinearGradient(l, 0, r, 0, getColors(saturation, value, perceptual, false), null,
+                Shader.TileMode.CLAMP);
+        put(key, shader);
+        return shader;
+    }
+
+    /**
+     * Set maximum number of cached entries. Clears the cache
+     * @param maxSize maximum number of entries, at least 1
+     */
+    public synchronized void setMaxSize(int maxSize) {
+        maxSize = Math.max(maxSize, 1);
+        mKeys = new long[maxSize];
+        mLastUsed = new long[maxSize];
+        mValues = new Object[maxSize];
+        mSize = 0;
+    }
+
+    /**
+     * Get maximum number of cached entries
+     * @return maximum number of entries
+     */
+    public synchronized int getMaxSize() {
+        return mKeys.length;
+    }
+
+    /**
+     * Get number of lookups served from the cache
+     * @return hit count
+     */
+    public synchronized int getHitCount() {
+        return mHits;
+    }
+
+    /**
+     * Get number of lookups that had to create a new entry
+     * @return miss count
+     */
+    public synchronized int getMissCount() {
+        return mMisses;
+    }
+
+    /**
+     * Remove all entries and reset hit/miss counters
+     */
+    public synchronized void clear() {
+        for (int i = 0; i < mSize; i++)
+            mValues[i] = null;
+        mSize = 0;
+        mHits = 0;
+        mMisses = 0;
+    }
+
+    private int indexOf(long key, boolean count) {
+        for (int i = 0; i < mSize; i++) {
+            if (mKeys[i] == key) {
+                mLastUsed[i] = ++mClock;
+                if (count) mHits++;
+                return i;
+            }
+        }
+        if (count) mMisses++;
+        return -1;
+    }
+
+    private void put(long key, Object value) {
+        int index = mSize;
+        if (mSize < mKeys.length) {
+            mSize++;
+        } else {
+            // evict least recently used entry
+            index = 0;
+            for (int i = 1; i < mSize; i++)
+                if (mLastUsed[i] < mLastUsed[index])
+                    index = i;
+        }
+
+        mKeys[index] = key;
+        mValues[index] = value;
+        mLastUsed[index] = ++mClock;
+    }
+
+    private static long flag(boolean perceptual) {
+        return perceptual ? PERCEPTUAL : 0;
+    }
+
+    private static long quantize(float saturation, float value) {
+        return (level(saturation) << 8) | level(value);
+    }
+
+    private static long level(float f) {
+        return Math.round(Utils.clamp(f, 0, 1) * LEVELS);
+    }
+
+    private static float dequantize(float f) {
+        return level(f) / (float)LEVELS;
+    }
+}
@@ -0,0 +1,292 @@
+package com.github.mata1.simpledroidcolorpicker.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Samples colors of large images without holding them in memory, for eyedroppers.
+ * Pixels are read from a {@link PixelSource} in regions only: small kernels are answered from a cached window
+ * around the last sample, with O(1) averages from its integral images, so dragging across an image mostly
+ * avoids decoding; kernels larger than the window are split into tiles sampled in parallel.
+ * Sampling runs in the background, newer requests cancel older ones.
+ */
+public class ImageSampler {
+
+    /**
+     * Source of image pixels, e.g. a region decoder
+     */
+    public interface PixelSource {
+        int getWidth();
+        int getHeight();
+
+        /**
+         * Read region of pixels, must be safe to call from several threads
+         * @param pixels destination, row major with row stride width
+         * @param x region left
+         * @param y region top
+         * @param width region width
+         * @param height region height
+         */
+        void getPixels(int[] pixels, int x, int y, int width, int height);
+    }
+
+    /**
+     * Sampled color callback, called on a background thread
+     */
+    public interface Callback {
+        /**
+         * Called when sample is ready, unless request was cancelled
+         * @param x sampled column in image pixels
+         * @param y sampled row in image pixels
+         * @param color opaque sampled color
+         */
+        void colorSampled(int x, int y, int color);
+    }
+
+    public enum Mode {
+        /** mean of kernel pixels */
+        AVERAGE,
+        /** per-channel median of kernel pixels, ignores outliers like specular highlights */
+        MEDIAN
+    }
+
+    public static final int WINDOW_SIZE = 256; // cached window around samples
+    public static final int TILE_SIZE = 512; // tile of large kernels
+
+    private final PixelSource mSource;
+    private final ExecutorService mRequestExecutor; // one request at a time
+    private final ExecutorService mTileExecutor;
+    private final boolean mOwnsTileExecutor;
+
+    private Future<?> mPending;
+    private volatile boolean mClosed;
+
+    // cached window, guarded by its own lock so sample() and close() never wait for a window decode
+    private final Object mWindowLock = new Object();
+    private ColorSampler mWindow;
+    private int mWindowX, mWindowY;
+
+    private final ThreadLocal<int[]> mTileBuffer = new ThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() {
+            return new int[TILE_SIZE * TILE_SIZE];
+        }
+    };
+
+    /**
+     * Create sampler with its own tile threads, one per processor
+     * @param source image pixel source
+     */
+    public ImageSampler(PixelSource source) {
+        this(source, null);
+    }
+
+    /**
+     * Create sampler
+     * @param source image pixel source
+     * @param tileExecutor executor sampling tiles of large kernels, null to create one thread per processor
+     */
+    public ImageSampler(PixelSource source, ExecutorService tileExecutor) {
+        mSource = source;
+        mRequestExecutor = Executors.newSingleThreadExecutor(new DaemonThreadFactory("ImageSampler"));
+        mOwnsTileExecutor = tileExecutor == null;
+        mTileExecutor = tileExecutor != null ? tileExecutor : Executors.newFixedThreadPool(
+                Runtime.getRuntime().availableProcessors(), new DaemonThreadFactory("ImageSampler-tile"));
+    }
+
+    /**
+     * Sample color around image pixel in the background, cancelling the previous request if still pending
+     * @param x column in image pixels
+     * @param y row in image pixels
+     * @param radius kernel radius, kernel is a (2 * radius + 1) square clipped to the image
+     * @param mode sampling mode
+     * @param callback called with sampled color
+     * @return future of request, cancel to stop sampling
+     */
+    public synchronized Future<?> sample(final int x, final int y, final int radius, final Mode mode,
+                                         final Callback callback) {
+        if (mPending != null)
+            mPending.cancel(true);
+
+        mPending = mRequestExecutor.submit(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    int color = sampleNow(x, y, radius, mode);
+                    if (!Thread.currentThread().isInterrupted() && !mClosed)
+                        callback.colorSampled(x, y, color);
+                } catch (InterruptedException e) {
+                    // cancelled by newer request
+                } catch (RuntimeException e) {
+                    if (!mClosed)
+                        throw e;
+                    // source released with sampler while reading, drop result
+                }
+            }
+        });
+        return mPending;
+    }
+
+    /**
+     * Sample color around image pixel on the calling thread
+     * @param x column in image pixels
+     * @param y row in image pixels
+     * @param radius kernel radius, kernel is a (2 * radius + 1) square clipped to the image
+     * @param mode sampling mode
+     * @return opaque sampled color, 0 if kernel is outside the image
+     * @throws InterruptedException if thread was interrupted while sampling tiles
+     */
+    public int sampleNow(int x, int y, int radius, Mode mode) throws InterruptedException {
+        radius = Math.max(radius, 0);
+        int left = Math.max(x - radius, 0);
+        int top = Math.max(y - radius, 0);
+        int right = Math.min(x + radius + 1, mSource.getWidth());
+        int bottom = Math.min(y + radius + 1, mSource.getHeight());
+        if (left >= right || top >= bottom)
+            return 0;
+
+        if (right - left <= WINDOW_SIZE / 2 && bottom - top <= WINDOW_SIZE / 2)
+            return sampleWindow(x, y, left, top, right, bottom, mode);
+        return sampleTiles(left, top, right, bottom, mode);
+    }
+
+    /**
+     * Sample small kernel from window around it, reading a new window only if the kernel is not inside the cached one
+     */
+    private int sampleWindow(int x, int y, int left, int top, int right, int bottom, Mode mode) {
+        synchronized (mWindowLock) {
+            if (mWindow == null || left < mWindowX || top < mWindowY
+                    || right > mWindowX + mWindow.getWidth() || bottom > mWindowY + mWindow.getHeight()) {
+                int w = Math.min(WINDOW_SIZE, mSource.getWidth());
+                int h = Math.min(WINDOW_SIZE, mSource.getHeight());
+                mWindowX = (int)Utils.clamp(x - w / 2, 0, mSource.getWidth() - w);
+                mWindowY = (int)Utils.clamp(y - h / 2, 0, mSource.getHeight() - h);
+                int[] pixels = new int[w * h]; // kept by sampler
+                mSource.getPixels(pixels, mWindowX, mWindowY, w, h);
+                mWindow = new ColorSampler(pixels, w, h);
+            }
+
+            left -= mWindowX;
+            top -= mWindowY;
+            right -= mWindowX;
+            bottom -= mWindowY;
+            return mode == Mode.MEDIAN
+                    ? mWindow.getMedianColor(left, top, right, bottom)
+                    : mWindow.getAverageColor(left, top, right, bottom);
+        }
+    }
+
+    /**
+     * Sample large kernel as tiles in parallel, merging tile sums and histograms
+     */
+    private int sampleTiles(int left, int top, int right, int bottom, final Mode mode) throws InterruptedException {
+        List<Future<long[]>> tiles = new ArrayList<Future<long[]>>();
+        try {
+            for (int ty = top; ty < bottom; ty += TILE_SIZE) {
+                for (int tx = left; tx < right; tx += TILE_SIZE) {
+                    final int x = tx, y = ty;
+                    final int w = Math.min(TILE_SIZE, right - tx), h = Math.min(TILE_SIZE, bottom - ty);
+                    tiles.add(mTileExecutor.submit(new Callable<long[]>() {
+                        @Override
+                        public long[] call() {
+                            return sampleTile(x, y, w, h, mode);
+                        }
+                    }));
+                }
+            }
+
+            long[] total = new long[mode == Mode.MEDIAN ? 256 * 3 : 3];
+            for (Future<long[]> tile : tiles) {
+                long[] partial = tile.get();
+                for (int i = 0; i < total.length; i++)
+                    total[i] += partial[i];
+            }
+
+            long count = (long)(right - left) * (bottom - top);
+            if (mode == Mode.MEDIAN) {
+                int[] hist = new int[256 * 3];
+                for (int i = 0; i < hist.length; i++)
+                    hist[i] = (int)Math.min(total[i], Integer.MAX_VALUE);
+                return ColorSampler.medianColor(hist, count);
+            }
+            return 0xFF000000
+                    | (int)((total[0] * 2 + count) / (count * 2)) << 16
+                    | (int)((total[1] * 2 + count) / (count * 2)) << 8
+                    | (int)((total[2] * 2 + count) / (count * 2));
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } catch (CancellationException e) {
+            throw new InterruptedException();
+        } finally {
+            for (Future<long[]> tile : tiles)
+                tile.cancel(true);
+        }
+    }
+
+    /**
+     * Read tile and sum its channels, or count them into histograms for median
+     * @return red, green and blue sums, or 768 histogram bins
+     */
+    private long[] sampleTile(int x, int y, int w, int h, Mode mode) {
+        int[] pixels = mTileBuffer.get();
+        mSource.getPixels(pixels, x, y, w, h);
+        int n = w * h;
+
+        if (mode == Mode.MEDIAN) {
+            int[] hist = new int[256 * 3];
+            ColorSampler.accumulateHistogram(pixels, 0, n, hist);
+            long[] result = new long[hist.length];
+            for (int i = 0; i < hist.length; i++)
+                result[i] = hist[i];
+            return result;
+        }
+
+        long r = 0, g = 0, b = 0;
+        for (int i = 0; i < n; i++) {
+            int c = pixels[i];
+            r += (c >> 16) & 0xFF;
+            g += (c >> 8) & 0xFF;
+            b += c & 0xFF;
+        }
+        return new long[] { r, g, b };
+    }
+
+    /**
+     * Cancel pending request and stop sampler threads. Reads already in flight may still finish,
+     * their results are dropped
+     */
+    public synchronized void close() {
+        mClosed = true;
+        if (mPending != null)
+            mPending.cancel(true);
+        mRequestExecutor.shutdownNow();
+        if (mOwnsTileExecutor)
+            mTileExecutor.shutdownNow();
+    }
+
+    public PixelSource getSource() {
+        return mSource;
+    }
+
+    private static class DaemonThreadFactory implements ThreadFactory {
+        private final String mName;
+
+        DaemonThreadFactory(String name) {
+            mName = name;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, mName);
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
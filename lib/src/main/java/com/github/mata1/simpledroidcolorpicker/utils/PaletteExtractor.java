@@ -0,0 +1,521 @@
+package com.github.mata1.simpledroidcolorpicker.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Extracts dominant colors from images, e.g. to suggest colors next to a picker.
+ * Pixels are first counted into a histogram of 5 bit per channel bins, so extraction cost depends on the number
+ * of distinct bins rather than on image size; pass downsampled pixels, a few hundred thousand are plenty.
+ * Swatches are then found by median cut or by k-means++ clustering, in RGB or OKLab.
+ */
+public class PaletteExtractor {
+
+    /** histogram bits per channel */
+    public static final int HISTOGRAM_BITS = 5;
+    /** number of histogram bins */
+    public static final int HISTOGRAM_SIZE = 1 << (HISTOGRAM_BITS * 3);
+
+    /**
+     * Minimum number of pixels per task when building histograms in parallel
+     */
+    public static final int MIN_CHUNK_SIZE = 64 * 1024;
+
+    private static final int MIN_ALPHA = 128; // more transparent pixels are not counted
+    private static final int MAX_ITERATIONS = 16; // k-means iterations
+
+    private static final int SHIFT = 8 - HISTOGRAM_BITS;
+    private static final int MASK = (1 << HISTOGRAM_BITS) - 1;
+
+    /**
+     * Extracted color and the number of pixels it stands for
+     */
+    public static class Swatch {
+        private final int mColor;
+        private final int mPopulation;
+
+        public Swatch(int color, int population) {
+            mColor = color;
+            mPopulation = population;
+        }
+
+        /**
+         * Get swatch color
+         * @return opaque color
+         */
+        public int getColor() {
+            return mColor;
+        }
+
+        /**
+         * Get number of pixels closest to this swatch
+         * @return pixel count
+         */
+        public int getPopulation() {
+            return mPopulation;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("#%06X x %d", mColor & 0xFFFFFF, mPopulation);
+        }
+    }
+
+    /*
+    HISTOGRAM
+     */
+
+    /**
+     * Count pixels into a new histogram
+     * @param pixels ARGB pixels
+     * @param offset index of first pixel
+     * @param length number of pixels
+     * @return histogram of {@link #HISTOGRAM_SIZE} bins
+     */
+    public static int[] buildHistogram(int[] pixels, int offset, int length) {
+        checkRange(pixels.length, offset, length);
+        int[] histogram = new int[HISTOGRAM_SIZE];
+        accumulate(pixels, offset, length, histogram);
+        return histogram;
+    }
+
+    /**
+     * Count pixels into a new histogram, splitting large ranges across executor threads. Every task counts into
+     * its own histogram, merged when all are done, so threads never write to shared bins.
+     * The calling thread counts one chunk itself and blocks until all chunks are done
+     * @param executor executor running counting tasks
+     * @param pixels ARGB pixels
+     * @param offset index of first pixel
+     * @param length number of pixels
+     * @param parallelism maximum number of chunks, e.g. number of cores
+     * @return histogram of {@link #HISTOGRAM_SIZE} bins
+     * @throws InterruptedException if interrupted while waiting for tasks
+     */
+    public static int[] buildHistogram(ExecutorService executor, final int[] pixels, final int offset, int length,
+                                       int parallelism) throws InterruptedException {
+        checkRange(pixels.length, offset, length);
+
+        int chunks = Math.max(1, Math.min(parallelism, length / MIN_CHUNK_SIZE));
+        int chunkSize = (length + chunks - 1) / chunks;
+
+        List<Future<int[]>> futures = new ArrayList<Future<int[]>>(chunks - 1);
+        for (int start = chunkSize; start < length; start += chunkSize) {
+            final int s = start;
+            final int n = Math.min(chunkSize, length - start);
+            futures.add(executor.submit(new Callable<int[]>() {
+                @Override
+                public int[] call() {
+                    return buildHistogram(pixels, offset + s, n);
+                }
+            }));
+        }
+
+        int[] histogram = buildHistogram(pixels, offset, Math.min(chunkSize, length));
+        try {
+            for (Future<int[]> future : futures) {
+                int[] partial = future.get();
+                for (int i = 0; i < HISTOGRAM_SIZE; i++)
+                    histogram[i] += partial[i];
+            }
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            for (Future<int[]> future : futures)
+                future.cancel(true);
+        }
+        return histogram;
+    }
+
+    private static void accumulate(int[] pixels, int offset, int length, int[] histogram) {
+        for (int i = offset, end = offset + length; i < end; i++) {
+            int c = pixels[i];
+            if ((c >>> 24) < MIN_ALPHA)
+                continue;
+            histogram[((c >> (16 + SHIFT)) & MASK) << (HISTOGRAM_BITS * 2)
+                    | ((c >> (8 + SHIFT)) & MASK) << HISTOGRAM_BITS
+                    | (c >> SHIFT) & MASK]++;
+        }
+    }
+
+    /*
+    MEDIAN CUT
+     */
+
+    /**
+     * Find swatches by median cut: the box of bins with the largest squared error is split along its channel of
+     * largest variance, until there are enough boxes or none can be split. The cut is placed where the squared
+     * errors of both halves add up to the least rather than at the plain pixel median, so a dominant cluster
+     * is not cut in two while smaller ones stay merged
+     * @param histogram histogram from {@link #buildHistogram(int[], int, int)}
+     * @param maxColors maximum number of swatches
+     * @return swatches, most populated first
+     */
+    public static List<Swatch> medianCut(int[] histogram, int maxColors) {
+        int[] bins = occupiedBins(histogram);
+        List<Swatch> swatches = new ArrayList<Swatch>();
+        if (bins.length == 0 || maxColors <= 0)
+            return swatches;
+
+        PriorityQueue<Box> boxes = new PriorityQueue<Box>(maxColors, new Comparator<Box>() {
+            @Override
+            public int compare(Box a, Box b) {
+                return Double.compare(b.mError, a.mError);
+            }
+        });
+        boxes.add(new Box(bins, histogram, 0, bins.length));
+
+        List<Box> done = new ArrayList<Box>();
+        while (boxes.size() + done.size() < maxColors && !boxes.isEmpty()) {
+            Box box = boxes.poll();
+            if (box.mEnd - box.mStart < 2) {
+                done.add(box); // single bin
+                continue;
+            }
+            int split = box.split(bins, histogram);
+            boxes.add(new Box(bins, histogram, box.mStart, split));
+            boxes.add(new Box(bins, histogram, split, box.mEnd));
+        }
+        done.addAll(boxes);
+
+        for (Box box : done)
+            swatches.add(box.toSwatch(bins, histogram));
+        sortByPopulation(swatches);
+        return swatches;
+    }
+
+    /**
+     * Range of occupied bins with its squared error in histogram coordinates
+     */
+    private static class Box {
+        final int mStart, mEnd;
+        final double mError;
+        final int mChannel; // channel of largest variance
+
+        Box(int[] bins, int[] histogram, int start, int end) {
+            mStart = start;
+            mEnd = end;
+
+            long population = 0;
+            long[] sum = new long[3], sumSq = new long[3];
+            for (int i = start; i < end; i++) {
+                int bin = bins[i];
+                long n = histogram[bin];
+                for (int c = 0; c < 3; c++) {
+                    int v = channel(bin, c);
+                    sum[c] += n * v;
+                    sumSq[c] += n * v * v;
+                }
+                population += n;
+            }
+
+            double error = 0;
+            int channel = 0;
+            double largest = -1;
+            for (int c = 0; c < 3; c++) {
+                double e = sumSq[c] - (double)sum[c] * sum[c] / population;
+                error += e;
+                if (e > largest) {
+                    largest = e;
+                    channel = c;
+                }
+            }
+            mError = error;
+            mChannel = channel;
+        }
+
+        /**
+         * Sort bins along channel of largest variance and find the cut with least squared error,
+         * keeping both halves non-empty
+         * @return index of first bin of second half
+         */
+        int split(int[] bins, int[] histogram) {
+            // sort by channel with the bin as tie breaker, packed into one int
+            for (int i = mStart; i < mEnd; i++)
+                bins[i] |= channel(bins[i], mChannel) << (HISTOGRAM_BITS * 3);
+            Arrays.sort(bins, mStart, mEnd);
+
+            long population = 0, sum = 0, sumSq = 0;
+            for (int i = mStart; i < mEnd; i++) {
+                bins[i] &= HISTOGRAM_SIZE - 1;
+                long n = histogram[bins[i]];
+                int v = channel(bins[i], mChannel);
+                population += n;
+                sum += n * v;
+                sumSq += n * v * v;
+            }
+
+            // error of both halves along the channel, for every cut between two channel values
+            int best = mStart + 1;
+            double bestError = Double.MAX_VALUE;
+            long leftPopulation = 0, leftSum = 0, leftSumSq = 0;
+            for (int i = mStart; i < mEnd - 1; i++) {
+                long n = histogram[bins[i]];
+                int v = channel(bins[i], mChannel);
+                leftPopulation += n;
+                leftSum += n * v;
+                leftSumSq += n * v * v;
+                if (channel(bins[i + 1], mChannel) == v)
+                    continue;
+
+                long rightPopulation = population - leftPopulation, rightSum = sum - leftSum;
+                double error = leftSumSq - (double)leftSum * leftSum / leftPopulation
+                        + (sumSq - leftSumSq) - (double)rightSum * rightSum / rightPopulation;
+                if (error < bestError) {
+                    bestError = error;
+                    best = i + 1;
+                }
+            }
+            return best;
+        }
+
+        Swatch toSwatch(int[] bins, int[] histogram) {
+            long r = 0, g = 0, b = 0, population = 0;
+            for (int i = mStart; i < mEnd; i++) {
+                int bin = bins[i];
+                int n = histogram[bin];
+                r += (long)n * binCenter(channel(bin, 0));
+                g += (long)n * binCenter(channel(bin, 1));
+                b += (long)n * binCenter(channel(bin, 2));
+                population += n;
+            }
+            return new Swatch(pack(
+                    (int)(r / population), (int)(g / population), (int)(b / population)),
+                    (int)Math.min(population, Integer.MAX_VALUE));
+        }
+    }
+
+    /*
+    K-MEANS
+     */
+
+    /**
+     * Find swatches by k-means clustering of histogram bins weighted by their pixel counts, seeded with k-means++
+     * @param histogram histogram from {@link #buildHistogram(int[], int, int)}
+     * @param k maximum number of swatches
+     * @param okLab cluster in OKLab instead of sRGB, perceptually closer swatches at extra conversion cost
+     * @param seed random seed, same seed gives same swatches
+     * @return swatches, most populated first
+     */
+    public static List<Swatch> kMeans(int[] histogram, int k, boolean okLab, long seed) {
+        int[] bins = occupiedBins(histogram);
+        int n = bins.length;
+        List<Swatch> swatches = new ArrayList<Swatch>();
+        if (n == 0 || k <= 0)
+            return swatches;
+        k = Math.min(k, n);
+
+        // bin coordinates and weights
+        float[] x = new float[n], y = new float[n], z = new float[n];
+        int[] weights = new int[n];
+        float[] lab = new float[3];
+        for (int i = 0; i < n; i++) {
+            int bin = bins[i];
+            int r = binCenter(channel(bin, 0)), g = binCenter(channel(bin, 1)), b = binCenter(channel(bin, 2));
+            if (okLab) {
+                ColorSpaceUtils.colorToOkLab(pack(r, g, b), lab);
+                x[i] = lab[0];
+                y[i] = lab[1];
+                z[i] = lab[2];
+            } else {
+                x[i] = r;
+                y[i] = g;
+                z[i] = b;
+            }
+            weights[i] = histogram[bin];
+        }
+
+        // greedy k-means++ seeding: candidates are drawn with probability weight * squared distance to nearest
+        // center, the one lowering the total distance most becomes the next center
+        float[] cx = new float[k], cy = new float[k], cz = new float[k];
+        double[] distances = new double[n], candidate = new double[n], chosen = new double[n];
+        int tries = 2 + (int)Math.log(k);
+        Random random = new Random(seed);
+        int first = pickWeighted(random, weights, null, n);
+        cx[0] = x[first];
+        cy[0] = y[first];
+        cz[0] = z[first];
+        double total = 0;
+        for (int i = 0; i < n; i++) {
+            distances[i] = distance(x[i], y[i], z[i], cx[0], cy[0], cz[0]);
+            total += distances[i] * weights[i];
+        }
+
+        int centers = 1;
+        while (centers < k && total > 0) {
+            int next = -1;
+            double nextTotal = Double.MAX_VALUE;
+            for (int t = 0; t < tries; t++) {
+                int c = pickWeighted(random, weights, distances, n);
+                double sum = 0;
+                for (int i = 0; i < n; i++) {
+                    candidate[i] = Math.min(distances[i], distance(x[i], y[i], z[i], x[c], y[c], z[c]));
+                    sum += candidate[i] * weights[i];
+                }
+                if (sum < nextTotal) {
+                    nextTotal = sum;
+                    next = c;
+                    double[] swap = chosen;
+                    chosen = candidate;
+                    candidate = swap;
+                }
+            }
+
+            cx[centers] = x[next];
+            cy[centers] = y[next];
+            cz[centers] = z[next];
+            centers++;
+            double[] swap = distances;
+            distances = chosen;
+            chosen = swap;
+            total = nextTotal; // 0 when there are fewer distinct bins than k
+        }
+
+        // Lloyd iterations
+        int[] assignment = new int[n];
+        Arrays.fill(assignment, -1);
+        double[] sx = new double[centers], sy = new double[centers], sz = new double[centers];
+        long[] population = new long[centers];
+        for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+            boolean changed = false;
+            Arrays.fill(sx, 0);
+            Arrays.fill(sy, 0);
+            Arrays.fill(sz, 0);
+            Arrays.fill(population, 0);
+
+            for (int i = 0; i < n; i++) {
+                int nearest = 0;
+                float best = Float.MAX_VALUE;
+                for (int c = 0; c < centers; c++) {
+                    float d = distance(x[i], y[i], z[i], cx[c], cy[c], cz[c]);
+                    if (d < best) {
+                        best = d;
+                        nearest = c;
+                    }
+                }
+                changed |= assignment[i] != nearest;
+                assignment[i] = nearest;
+
+                int w = weights[i];
+                sx[nearest] += x[i] * w;
+                sy[nearest] += y[i] * w;
+                sz[nearest] += z[i] * w;
+                population[nearest] += w;
+            }
+
+            for (int c = 0; c < centers; c++) {
+                if (population[c] > 0) {
+                    cx[c] = (float)(sx[c] / population[c]);
+                    cy[c] = (float)(sy[c] / population[c]);
+                    cz[c] = (float)(sz[c] / population[c]);
+                }
+            }
+            if (!changed)
+                break;
+        }
+
+        for (int c = 0; c < centers; c++) {
+            if (population[c] == 0)
+                continue;
+            int color = okLab
+                    ? ColorSpaceUtils.okLabToColor(cx[c], cy[c], cz[c])
+                    : pack(Math.round(cx[c]), Math.round(cy[c]), Math.round(cz[c]));
+            swatches.add(new Swatch(color, (int)Math.min(population[c], Integer.MAX_VALUE)));
+        }
+        sortByPopulation(swatches);
+        return swatches;
+    }
+
+    private static float distance(float x1, float y1, float z1, float x2, float y2, float z2) {
+        float dx = x1 - x2, dy = y1 - y2, dz = z1 - z2;
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    /**
+     * Pick index with probability proportional to weight, times distance if given
+     */
+    private static int pickWeighted(Random random, int[] weights, double[] distances, int n) {
+        double total = 0;
+        for (int i = 0; i < n; i++)
+            total += distances != null ? weights[i] * distances[i] : weights[i];
+
+        double target = random.nextDouble() * total;
+        for (int i = 0; i < n; i++) {
+            target -= distances != null ? weights[i] * distances[i] : weights[i];
+            if (target < 0)
+                return i;
+        }
+        return n - 1;
+    }
+
+    /*
+    HELPERS
+     */
+
+    /**
+     * Get colors of swatches
+     * @param swatches swatches
+     * @return swatch colors in the same order
+     */
+    public static int[] toColors(List<Swatch> swatches) {
+        int[] colors = new int[swatches.size()];
+        for (int i = 0; i < colors.length; i++)
+            colors[i] = swatches.get(i).getColor();
+        return colors;
+    }
+
+    private static int[] occupiedBins(int[] histogram) {
+        if (histogram.length != HISTOGRAM_SIZE)
+            throw new IllegalArgumentException("Histogram must have " + HISTOGRAM_SIZE + " bins");
+
+        int count = 0;
+        for (int i = 0; i < HISTOGRAM_SIZE; i++)
+            if (histogram[i] > 0)
+                count++;
+        int[] bins = new int[count];
+        for (int i = 0, j = 0; i < HISTOGRAM_SIZE; i++)
+            if (histogram[i] > 0)
+                bins[j++] = i;
+        return bins;
+    }
+
+    /**
+     * Get channel of bin, 0 for red, 1 for green, 2 for blue
+     */
+    private static int channel(int bin, int channel) {
+        return (bin >> (HISTOGRAM_BITS * (2 - channel))) & MASK;
+    }
+
+    /**
+     * Get 8 bit channel value at the center of a bin
+     */
+    private static int binCenter(int value) {
+        return (value << SHIFT) | (1 << (SHIFT - 1));
+    }
+
+    private static int pack(int r, int g, int b) {
+        return 0xFF000000 | r << 16 | g << 8 | b;
+    }
+
+    private static void sortByPopulation(List<Swatch> swatches) {
+        Collections.sort(swatches, new Comparator<Swatch>() {
+            @Override
+            public int compare(Swatch a, Swatch b) {
+                return b.mPopulation - a.mPopulation;
+            }
+        });
+    }
+
+    private static void checkRange(int arrayLength, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > arrayLength - length)
+            throw new ArrayIndexOutOfBoundsException("offset " + offset + ", length " + length + ", array length " + arrayLength);
+    }
+}
@@ -0,0 +1,334 @@
+package com.github.mata1.simpledroidcolorpicker.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+/**
+ * Compact binary palette, memory-mapped instead of parsed. Opening a palette only validates its header,
+ * so it takes the same time whatever the palette size, and colors are read straight from the mapping.
+ * <p>
+ * Layout, little endian, every section 4 byte aligned:
+ * <pre>
+ * header     magic "SDCP", version u16, columns u16, count, then offsets of the sections below (0 if absent)
+ * colors     count packed ARGB ints
+ * HSV        hue, saturation and value float columns, count floats each
+ * OKLab      L, a and b float columns, count floats each
+ * names      count + 1 int offsets into name data, then UTF-8 name data
+ * </pre>
+ */
+public class PaletteFile {
+
+    /** precomputed HSV columns */
+    public static final int COLUMNS_HSV = 1;
+    /** precomputed OKLab columns */
+    public static final int COLUMNS_OKLAB = 2;
+
+    private static final int MAGIC = 0x50434453; // "SDCP" in little endian
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int NAMES = 4; // columns flag, set when names are present
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final ByteBuffer mBuffer;
+    private final int mCount;
+    private final int mColumns;
+    private final IntBuffer mColors;
+    private final FloatBuffer[] mHSV, mLab;
+    private final IntBuffer mNameOffsets;
+    private final int mNameData;
+
+    private PaletteFile(ByteBuffer buffer) throws IOException {
+        mBuffer = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+
+        if (mBuffer.capacity() < HEADER_SIZE || mBuffer.getInt(0) != MAGIC)
+            throw new IOException("Not a palette file");
+        if ((mBuffer.getShort(4) & 0xFFFF) != VERSION)
+            throw new IOException("Unsupported palette version " + (mBuffer.getShort(4) & 0xFFFF));
+
+        mColumns = mBuffer.getShort(6) & 0xFFFF;
+        mCount = mBuffer.getInt(8);
+        if (mCount < 0)
+            throw new IOException("Invalid palette size " + mCount);
+
+        mColors = intView(mBuffer.getInt(12), mCount);
+        mHSV = (mColumns & COLUMNS_HSV) != 0 ? floatColumns(mBuffer.getInt(16)) : null;
+        mLab = (mColumns & COLUMNS_OKLAB) != 0 ? floatColumns(mBuffer.getInt(20)) : null;
+
+        if ((mColumns & NAMES) != 0) {
+            mNameOffsets = intView(mBuffer.getInt(24), mCount + 1);
+            mNameData = mBuffer.getInt(28);
+            int dataSize = mNameOffsets.get(mCount);
+            if (mNameData < HEADER_SIZE || dataSize < 0 || mNameData > mBuffer.capacity() - dataSize)
+                throw new IOException("Name data out of bounds");
+        } else {
+            mNameOffsets = null;
+            mNameData = 0;
+        }
+    }
+
+    /**
+     * Map palette file into memory
+     * @param file palette file
+     * @return palette backed by the mapping
+     * @throws IOException if file cannot be mapped or is not a valid palette
+     */
+    public static PaletteFile open(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            // mapping stays valid after the channel is closed
+            return new PaletteFile(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Read palette from buffer holding a palette file, e.g. loaded from assets. The buffer is not copied
+     * @param buffer buffer holding palette file from its position to its limit
+     * @return palette backed by the buffer
+     * @throws IOException if buffer does not hold a valid palette
+     */
+    public static PaletteFile wrap(ByteBuffer buffer) throws IOException {
+        return new PaletteFile(buffer);
+    }
+
+    /**
+     * Get number of palette colors
+     * @return palette size
+     */
+    public int size() {
+        return mCount;
+    }
+
+    /**
+     * Get palette color
+     * @param index palette index
+     * @return ARGB color
+     */
+    public int getColor(int index) {
+        return mColors.get(index);
+    }
+
+    /**
+     * Get all palette colors, without copying
+     * @return read-only view of packed ARGB colors
+     */
+    public IntBuffer getColors() {
+        return mColors.duplicate();
+    }
+
+    /**
+     * Copy all palette colors into array
+     * @param colors destination array, length >= size
+     */
+    public void getColors(int[] colors) {
+        mColors.duplicate().get(colors, 0, mCount);
+    }
+
+    /**
+     * Get whether palette has precomputed HSV columns
+     * @return true if HSV columns are present
+     */
+    public boolean hasHSV() {
+        return mHSV != null;
+    }
+
+    /**
+     * Get precomputed HSV column, without copying
+     * @param component 0 for hue, 1 for saturation, 2 for value
+     * @return read-only view of column, null if palette has no HSV columns
+     */
+    public FloatBuffer getHSVColumn(int component) {
+        return mHSV != null ? mHSV[component].duplicate() : null;
+    }
+
+    /**
+     * Get whether palette has precomputed OKLab columns
+     * @return true if OKLab columns are present
+     */
+    public boolean hasOkLab() {
+        return mLab != null;
+    }
+
+    /**
+     * Get precomputed OKLab column, without copying
+     * @param component 0 for L, 1 for a, 2 for b
+     * @return read-only view of column, null if palette has no OKLab columns
+     */
+    public FloatBuffer getOkLabColumn(int component) {
+        return mLab != null ? mLab[component].duplicate() : null;
+    }
+
+    /**
+     * Get whether palette has color names
+     * @return true if names are present
+     */
+    public boolean hasNames() {
+        return mNameOffsets != null;
+    }
+
+    /**
+     * Get color name, decoded on each call
+     * @param index palette index
+     * @return color name, null if palette has no names
+     */
+    public String getName(int index) {
+        if (mNameOffsets == null)
+            return null;
+
+        int start = mNameOffsets.get(index);
+        int end = mNameOffsets.get(index + 1);
+        if (start < 0 || end < start || end > mNameOffsets.get(mCount))
+            throw new IllegalStateException("Corrupt name offsets at " + index);
+
+        byte[] bytes = new byte[end - start];
+        ByteBuffer data = mBuffer.duplicate();
+        data.position(mNameData + start);
+        data.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    /**
+     * Build nearest color index over palette colors and names
+     * @return palette index
+     */
+    public PaletteIndex toPaletteIndex() {
+        int[] colors = new int[mCount];
+        getColors(colors);
+
+        String[] names = null;
+        if (hasNames()) {
+            names = new String[mCount];
+            for (int i = 0; i < mCount; i++)
+                names[i] = getName(i);
+        }
+        return new PaletteIndex(colors, names);
+    }
+
+    /**
+     * Write palette file
+     * @param out output stream, not closed
+     * @param colors palette colors
+     * @param names color names, same length as colors, may be null
+     * @param columns precomputed columns to include, {@link #COLUMNS_HSV} and/or {@link #COLUMNS_OKLAB}
+     * @throws IOException if writing fails
+     */
+    public static void write(OutputStream out, int[] colors, String[] names, int columns) throws IOException {
+        if (names != null && names.length != colors.length)
+            throw new IllegalArgumentException("Got " + colors.length + " colors and " + names.length + " names");
+
+        int n = colors.length;
+        columns &= COLUMNS_HSV | COLUMNS_OKLAB;
+
+        byte[][] nameBytes = null;
+        int nameDataSize = 0;
+        if (names != null) {
+            columns |= NAMES;
+            nameBytes = new byte[n][];
+            for (int i = 0; i < n; i++) {
+                nameBytes[i] = names[i] != null ? names[i].getBytes(UTF_8) : new byte[0];
+                nameDataSize += nameBytes[i].length;
+            }
+        }
+
+        // section offsets
+        int colorsOffset = HEADER_SIZE;
+        int end = colorsOffset + n * 4;
+        int hsvOffset = (columns & COLUMNS_HSV) != 0 ? end : 0;
+        if (hsvOffset != 0) end += n * 12;
+        int labOffset = (columns & COLUMNS_OKLAB) != 0 ? end : 0;
+        if (labOffset != 0) end += n * 12;
+        int nameOffsetsOffset = names != null ? end : 0;
+        if (names != null) end += (n + 1) * 4;
+        int nameDataOffset = names != null ? end : 0;
+        end += nameDataSize;
+
+        ByteBuffer buffer = ByteBuffer.allocate(end).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC);
+        buffer.putShort((short)VERSION);
+        buffer.putShort((short)columns);
+        buffer.putInt(n);
+        buffer.putInt(colorsOffset);
+        buffer.putInt(hsvOffset);
+        buffer.putInt(labOffset);
+        buffer.putInt(nameOffsetsOffset);
+        buffer.putInt(nameDataOffset);
+
+        buffer.asIntBuffer().put(colors);
+        buffer.position(colorsOffset + n * 4);
+
+        if (hsvOffset != 0) {
+            float[] h = new float[n], s = new float[n], v = new float[n];
+            ColorBatchUtils.colorsToHSV(colors, 0, h, s, v, 0, n);
+            putColumns(buffer, hsvOffset, h, s, v);
+        }
+
+        if (labOffset != 0) {
+            float[] L = new float[n], a = new float[n], b = new float[n];
+            float[] lab = new float[3];
+            for (int i = 0; i < n; i++) {
+                ColorSpaceUtils.colorToOkLab(colors[i], lab);
+                L[i] = lab[0];
+                a[i] = lab[1];
+                b[i] = lab[2];
+            }
+            putColumns(buffer, labOffset, L, a, b);
+        }
+
+        if (names != null) {
+            buffer.position(nameOffsetsOffset);
+            int offset = 0;
+            for (int i = 0; i < n; i++) {
+                buffer.putInt(offset);
+                offset += nameBytes[i].length;
+            }
+            buffer.putInt(offset);
+            for (int i = 0; i < n; i++)
+                buffer.put(nameBytes[i]);
+        }
+
+        out.write(buffer.array(), 0, end);
+    }
+
+    private static void putColumns(ByteBuffer buffer, int offset, float[] c0, float[] c1, float[] c2) {
+        int n = c0.length;
+        buffer.position(offset);
+        buffer.asFloatBuffer().put(c0);
+        buffer.position(offset + n * 4);
+        buffer.asFloatBuffer().put(c1);
+        buffer.position(offset + n * 8);
+        buffer.asFloatBuffer().put(c2);
+    }
+
+    private IntBuffer intView(int offset, int count) throws IOException {
+        ByteBuffer b = view(offset, count);
+        return b.asIntBuffer().asReadOnlyBuffer();
+    }
+
+    private FloatBuffer[] floatColumns(int offset) throws IOException {
+        FloatBuffer[] columns = new FloatBuffer[3];
+        for (int i = 0; i < 3; i++)
+            columns[i] = view(offset + i * mCount * 4, mCount).asFloatBuffer().asReadOnlyBuffer();
+        return columns;
+    }
+
+    private ByteBuffer view(int offset, int count) throws IOException {
+        if (offset < HEADER_SIZE || (offset & 3) != 0 || count > (mBuffer.capacity() - offset) / 4)
+            throw new IOException("Palette section out of bounds");
+
+        ByteBuffer b = mBuffer.duplicate();
+        b.position(offset);
+        b.limit(offset + count * 4);
+        return b.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
@@ -0,0 +1,298 @@
+package com.github.mata1.simpledroidcolorpicker.utils;
+
+/**
+ * Nearest color index over a fixed palette, e.g. brand or named colors.
+ * Palette colors are bucketed into a uniform grid of cubic cells in OKLab, so distances match perceived
+ * color differences and a lookup only visits the few cells around the query instead of the whole palette.
+ * The index is immutable once built and lookups are thread safe.
+ */
+public class PaletteIndex {
+
+    private static final int ENTRIES_PER_CELL = 2; // target average cell occupancy
+    private static final int MAX_CELLS = 1 << 21;
+
+    private final int[] mColors;
+    private final String[] mNames;
+
+    // grid
+    private final float mMinL, mMinA, mMinB;
+    private final float mMaxL, mMaxA, mMaxB; // palette bounds, inside last cell
+    private final float mCellSize;
+    private final int mSizeL, mSizeA, mSizeB;
+    private final int[] mCellStart; // entries of cell i are mCellStart[i]..mCellStart[i+1]
+
+    // entries in cell order, coordinates kept next to each other for cache friendly scans
+    private final float[] mLab;
+    private final int[] mEntries; // palette index of each entry
+
+    private final ThreadLocal<float[]> mScratch = new ThreadLocal<float[]>() {
+        @Override
+        protected float[] initialValue() {
+            return new float[3];
+        }
+    };
+
+    /**
+     * Build index over palette colors
+     * @param colors palette colors, alpha is ignored
+     */
+    public PaletteIndex(int[] colors) {
+        this(colors, null);
+    }
+
+    /**
+     * Build index over named palette colors
+     * @param colors palette colors, alpha is ignored
+     * @param names color names, same length as colors, may be null
+     */
+    public PaletteIndex(int[] colors, String[] names) {
+        if (names != null && names.length != colors.length)
+            throw new IllegalArgumentException("Got " + colors.length + " colors and " + names.length + " names");
+
+        int n = colors.length;
+        mColors = colors.clone();
+        mNames = names != null ? names.clone() : null;
+
+        // palette in OKLab and its bounds
+        float[] lab = new float[n * 3];
+        float[] tmp = new float[3];
+        float minL = Float.MAX_VALUE, minA = Float.MAX_VALUE, minB = Float.MAX_VALUE;
+        float maxL = -Float.MAX_VALUE, maxA = -Float.MAX_VALUE, maxB = -Float.MAX_VALUE;
+        for (int i = 0; i < n; i++) {
+            ColorSpaceUtils.colorToOkLab(colors[i], tmp);
+            lab[i * 3] = tmp[0];
+            lab[i * 3 + 1] = tmp[1];
+            lab[i * 3 + 2] = tmp[2];
+            minL = Math.min(minL, tmp[0]);
+            minA = Math.min(minA, tmp[1]);
+            minB = Math.min(minB, tmp[2]);
+            maxL = Math.max(maxL, tmp[0]);
+            maxA = Math.max(maxA, tmp[1]);
+            maxB = Math.max(maxB, tmp[2]);
+        }
+        if (n == 0)
+            minL = minA = minB = maxL = maxA = maxB = 0;
+
+        // cubic cells sized for target occupancy
+        float extentL = Math.max(maxL - minL, 1e-4f);
+        float extentA = Math.max(maxA - minA, 1e-4f);
+        float extentB = Math.max(maxB - minB, 1e-4f);
+        int cells = Math.min(Math.max(n / ENTRIES_PER_CELL, 1), MAX_CELLS);
+        float cellSize = (float)Math.cbrt(extentL * extentA * extentB / cells);
+        int sizeL, sizeA, sizeB;
+        while (true) {
+            sizeL = (int)(extentL / cellSize) + 1;
+            sizeA = (int)(extentA / cellSize) + 1;
+            sizeB = (int)(extentB / cellSize) + 1;
+            if ((long)sizeL * sizeA * sizeB <= MAX_CELLS)
+                break;
+            cellSize *= 1.25f; // flat palettes need more cells than expected
+        }
+        mMinL = minL;
+        mMinA = minA;
+        mMinB = minB;
+        mMaxL = maxL;
+        mMaxA = maxA;
+        mMaxB = maxB;
+        mCellSize = cellSize;
+        mSizeL = sizeL;
+        mSizeA = sizeA;
+        mSizeB = sizeB;
+
+        // counting sort entries by cell
+        int cellCount = sizeL * sizeA * sizeB;
+        int[] cellOf = new int[n];
+        mCellStart = new int[cellCount + 1];
+        for (int i = 0; i < n; i++) {
+            cellOf[i] = cell(cellCoord(lab[i * 3], minL, sizeL),
+                    cellCoord(lab[i * 3 + 1], minA, sizeA),
+                    cellCoord(lab[i * 3 + 2], minB, sizeB));
+            mCellStart[cellOf[i] + 1]++;
+        }
+        for (int i = 0; i < cellCount; i++)
+            mCellStart[i + 1] += mCellStart[i];
+
+        mLab = new float[n * 3];
+        mEntries = new int[n];
+        int[] fill = new int[cellCount];
+        for (int i = 0; i < n; i++) {
+            int c = cellOf[i];
+            int e = mCellStart[c] + fill[c]++;
+            mEntries[e] = i;
+            mLab[e * 3] = lab[i * 3];
+            mLab[e * 3 + 1] = lab[i * 3 + 1];
+            mLab[e * 3 + 2] = lab[i * 3 + 2];
+        }
+    }
+
+    /**
+     * Find palette color closest to color in OKLab
+     * @param color query color, alpha is ignored
+     * @return index of nearest palette color, -1 if palette is empty
+     */
+    public int findNearest(int color) {
+        float[] lab = mScratch.get();
+        ColorSpaceUtils.colorToOkLab(color, lab);
+        return findNearest(lab[0], lab[1], lab[2]);
+    }
+
+    /**
+     * Find palette color closest to OKLab coordinates
+     * @param L lightness
+     * @param a green-red axis
+     * @param b blue-yellow axis
+     * @return index of nearest palette color, -1 if palette is empty
+     */
+    public int findNearest(float L, float a, float b) {
+        if (mEntries.length == 0)
+            return -1;
+
+        int cl = cellCoord(L, mMinL, mSizeL);
+        int ca = cellCoord(a, mMinA, mSizeA);
+        int cb = cellCoord(b, mMinB, mSizeB);
+
+        // any entry is at least this far along each axis from a query outside the palette bounds
+        float outL = boundsGap(L, mMinL, mMaxL);
+        float outA = boundsGap(a, mMinA, mMaxA);
+        float outB = boundsGap(b, mMinB, mMaxB);
+
+        int best = -1;
+        float bestDist = Float.MAX_VALUE;
+
+        // visit a box of cells around query cell, grown by one cell on every side that has not reached
+        // the grid edge, until no closer entry can exist; only cells new to the box are scanned
+        int loL = cl, hiL = cl, loA = ca, hiA = ca, loB = cb, hiB = cb;
+        int oldLoL = 0, oldHiL = -1, oldLoA = 0, oldHiA = -1, oldLoB = 0, oldHiB = -1; // empty
+        while (true) {
+            for (int l = loL; l <= hiL; l++) {
+                float gapL = cellGap(L, mMinL, l);
+                if (gapL >= bestDist) continue; // whole slice is farther than best entry
+                boolean oldL = l >= oldLoL && l <= oldHiL;
+
+                for (int ia = loA; ia <= hiA; ia++) {
+                    float gapLA = gapL + cellGap(a, mMinA, ia);
+                    if (gapLA >= bestDist) continue;
+                    boolean oldRow = oldL && ia >= oldLoA && ia <= oldHiA;
+
+                    for (int ib = loB; ib <= hiB; ib++) {
+                        if (oldRow && ib == oldLoB) {
+                            ib = oldHiB; // already visited
+                            continue;
+                        }
+                        if (gapLA + cellGap(b, mMinB, ib) >= bestDist) continue;
+
+                        int c = cell(l, ia, ib);
+                        for (int e = mCellStart[c], end = mCellStart[c + 1]; e < end; e++) {
+                            float dL = mLab[e * 3] - L;
+                            float dA = mLab[e * 3 + 1] - a;
+                            float dB = mLab[e * 3 + 2] - b;
+                            float dist = dL * dL + dA * dA + dB * dB;
+                            if (dist < bestDist) {
+                                bestDist = dist;
+                                best = e;
+                            }
+                        }
+                    }
+                }
+            }
+
+            // unvisited entries lie beyond a side of the box that has not reached the grid edge
+            float bound = Float.MAX_VALUE;
+            if (loL > 0) bound = Math.min(bound, faceGap(L - cellStart(mMinL, loL)) + outA + outB);
+            if (hiL < mSizeL - 1) bound = Math.min(bound, faceGap(cellStart(mMinL, hiL + 1) - L) + outA + outB);
+            if (loA > 0) bound = Math.min(bound, faceGap(a - cellStart(mMinA, loA)) + outL + outB);
+            if (hiA < mSizeA - 1) bound = Math.min(bound, faceGap(cellStart(mMinA, hiA + 1) - a) + outL + outB);
+            if (loB > 0) bound = Math.min(bound, faceGap(b - cellStart(mMinB, loB)) + outL + outA);
+            if (hiB < mSizeB - 1) bound = Math.min(bound, faceGap(cellStart(mMinB, hiB + 1) - b) + outL + outA);
+            if (bound >= bestDist)
+                break; // also when the box covers the whole grid
+
+            oldLoL = loL; oldHiL = hiL;
+            oldLoA = loA; oldHiA = hiA;
+            oldLoB = loB; oldHiB = hiB;
+            loL = Math.max(loL - 1, 0);
+            hiL = Math.min(hiL + 1, mSizeL - 1);
+            loA = Math.max(loA - 1, 0);
+            hiA = Math.min(hiA + 1, mSizeA - 1);
+            loB = Math.max(loB - 1, 0);
+            hiB = Math.min(hiB + 1, mSizeB - 1);
+        }
+
+        return mEntries[best];
+    }
+
+    /**
+     * Get palette color closest to color in OKLab
+     * @param color query color
+     * @return nearest palette color, query color if palette is empty
+     */
+    public int getNearestColor(int color) {
+        int index = findNearest(color);
+        return index < 0 ? color : mColors[index];
+    }
+
+    /**
+     * Get number of palette colors
+     * @return palette size
+     */
+    public int size() {
+        return mColors.length;
+    }
+
+    /**
+     * Get palette color
+     * @param index palette index
+     * @return palette color
+     */
+    public int getColor(int index) {
+        return mColors[index];
+    }
+
+    /**
+     * Get palette color name
+     * @param index palette index
+     * @return color name, null if palette has no names
+     */
+    public String getName(int index) {
+        return mNames != null ? mNames[index] : null;
+    }
+
+    private int cellCoord(float v, float min, int size) {
+        int c = (int)((v - min) / mCellSize);
+        return c < 0 ? 0 : c >= size ? size - 1 : c;
+    }
+
+    private int cell(int l, int a, int b) {
+        return (l * mSizeA + a) * mSizeB + b;
+    }
+
+    /**
+     * Squared distance from coordinate to cell along one axis, 0 if inside
+     */
+    private float cellGap(float v, float min, int c) {
+        float lo = min + c * mCellSize;
+        float d = lo - v;
+        if (d <= 0)
+            d = v - lo - mCellSize;
+        return d > 0 ? d * d : 0;
+    }
+
+    private float cellStart(float min, int c) {
+        return min + c * mCellSize;
+    }
+
+    /**
+     * Squared distance from coordinate to palette bounds along one axis, 0 if inside
+     */
+    private static float boundsGap(float v, float min, float max) {
+        float d = v < min ? min - v : v - max;
+        return d > 0 ? d * d : 0;
+    }
+
+    /**
+     * Squared distance to a face of the visited box, 0 if rounding put the query beyond it
+     */
+    private static float faceGap(float d) {
+        return d > 0 ? d * d : 0;
+    }
+}
@@ -0,0 +1,102 @@
+package com.github.mata1.simpledroidcolorpicker.utils;
+
+import com.github.mata1.simpledroidcolorpicker.interfaces.OnPickerMetricsListener;
+
+/**
+ * Opt-in timing and allocation metrics of pickers, recorded into lock-free histograms.
+ * One instance can be shared by several pickers, and snapshots can be taken from any thread.
+ * @see com.github.mata1.simpledroidcolorpicker.pickers.ColorPicker#setMetrics(PickerMetrics)
+ */
+public class PickerMetrics {
+
+    public enum Metric {
+        /** nanoseconds per picker draw, including shader rebuilds */
+        DRAW_TIME,
+        /** nanoseconds from touch event to the picker handling it and invalidating, millisecond resolution */
+        TOUCH_LATENCY,
+        /** nanoseconds spent delivering a color changed event, including listeners run immediately */
+        LISTENER_TIME,
+        /** nanoseconds per shader rebuild, its count is the number of rebuilds */
+        SHADER_REBUILD_TIME,
+        /** shader rebuilds per touch gesture */
+        GESTURE_SHADER_REBUILDS,
+        /**
+         * objects allocated on the main thread per touch gesture, only recorded in debuggable apps,
+         * where pickers start {@link android.os.Debug#startAllocCounting()} for each gesture
+         */
+        GESTURE_ALLOCATIONS
+    }
+
+    private final AtomicHistogram[] mHistograms;
+    private volatile OnPickerMetricsListener mListener;
+
+    public PickerMetrics() {
+        Metric[] metrics = Metric.values();
+        mHistograms = new AtomicHistogram[metrics.length];
+        for (int i = 0; i < metrics.length; i++)
+            mHistograms[i] = new AtomicHistogram();
+    }
+
+    /**
+     * Record metric value
+     * @param metric metric
+     * @param value value in metric units
+     */
+    public void record(Metric metric, long value) {
+        mHistograms[metric.ordinal()].record(value);
+    }
+
+    /**
+     * Get histogram of metric
+     * @param metric metric
+     * @return metric histogram
+     */
+    public AtomicHistogram getHistogram(Metric metric) {
+        return mHistograms[metric.ordinal()];
+    }
+
+    /**
+     * Get snapshot of metric
+     * @param metric metric
+     * @return snapshot of metric histogram
+     */
+    public AtomicHistogram.Snapshot getSnapshot(Metric metric) {
+        return mHistograms[metric.ordinal()].getSnapshot();
+    }
+
+    /**
+     * Clear all metrics
+     */
+    public void reset() {
+        for (AtomicHistogram histogram : mHistograms)
+            histogram.reset();
+    }
+
+    /**
+     * Notify listener that a gesture ended, called by pickers
+     */
+    public void dispatchGestureFinished() {
+        OnPickerMetricsListener listener = mListener;
+        if (listener != null)
+            listener.gestureFinished(this);
+    }
+
+    /**
+     * Set listener notified when a touch gesture ends
+     * @param listener metrics listener, may be null
+     */
+    public void setOnPickerMetricsListener(OnPickerMetricsListener listener) {
+        mListener = listener;
+    }
+
+    /**
+     * Get summary of all metrics, one line per metric
+     * @return metrics dump
+     */
+    public String dump() {
+        StringBuilder sb = new StringBuilder();
+        for (Metric metric : Metric.values())
+            sb.append(metric).append(": ").append(getSnapshot(metric)).append('\n');
+        return sb.toString();
+    }
+}
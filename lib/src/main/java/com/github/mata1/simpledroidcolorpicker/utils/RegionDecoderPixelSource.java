@@ -0,0 +1,139 @@
+package com.github.mata1.simpledroidcolorpicker.utils;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Rect;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Image pixel source decoding regions of a JPEG or PNG on demand, so full resolution bitmaps are never loaded.
+ * Recycling is safe while background threads are decoding: the decoder is freed once they finish
+ */
+public class RegionDecoderPixelSource implements ImageSampler.PixelSource {
+
+    private final BitmapRegionDecoder mDecoder;
+    private final int mWidth, mHeight; // decoder throws once recycled
+    private int mDecoding; // decodes in flight, guarded by this
+    private boolean mRecycled;
+
+    private final ThreadLocal<Rect> mRect = new ThreadLocal<Rect>() {
+        @Override
+        protected Rect initialValue() {
+            return new Rect();
+        }
+    };
+
+    /**
+     * Create source decoding image file
+     * @param path image file path
+     * @throws IOException if image cannot be opened for region decoding
+     */
+    public RegionDecoderPixelSource(String path) throws IOException {
+        mDecoder = BitmapRegionDecoder.newInstance(path, false);
+        mWidth = mDecoder.getWidth();
+        mHeight = mDecoder.getHeight();
+    }
+
+    /**
+     * Create source decoding image stream, e.g. from a content uri
+     * @param stream image stream, read fully and not closed
+     * @throws IOException if image cannot be opened for region decoding
+     */
+    public RegionDecoderPixelSource(InputStream stream) throws IOException {
+        mDecoder = BitmapRegionDecoder.newInstance(stream, false);
+        mWidth = mDecoder.getWidth();
+        mHeight = mDecoder.getHeight();
+    }
+
+    @Override
+    public int getWidth() {
+        return mWidth;
+    }
+
+    @Override
+    public int getHeight() {
+        return mHeight;
+    }
+
+    /**
+     * Read region of pixels
+     * @throws IllegalStateException if source was recycled or region cannot be decoded
+     */
+    @Override
+    public void getPixels(int[] pixels, int x, int y, int width, int height) {
+        Rect rect = mRect.get();
+        rect.set(x, y, x + width, y + height);
+
+        if (!startDecoding())
+            throw new IllegalStateException("Source was recycled");
+        try {
+            // decoder serializes decoding internally, tiles still overlap their pixel copies
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+            Bitmap region = mDecoder.decodeRegion(rect, options);
+            if (region == null)
+                throw new IllegalStateException("Cannot decode region " + rect);
+
+            region.getPixels(pixels, 0, width, 0, 0, width, height);
+            region.recycle();
+        } finally {
+            finishDecoding();
+        }
+    }
+
+    /**
+     * Decode whole image subsampled to fit size, for previews
+     * @param maxWidth maximum preview width
+     * @param maxHeight maximum preview height
+     * @return preview bitmap, at most twice the given size in each dimension, null if source was recycled
+     */
+    public Bitmap decodePreview(int maxWidth, int maxHeight) {
+        int sampleSize = 1;
+        while (getWidth() / (sampleSize * 2) >= maxWidth && getHeight() / (sampleSize * 2) >= maxHeight)
+            sampleSize *= 2;
+
+        if (!startDecoding())
+            return null;
+        try {
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inSampleSize = sampleSize;
+            return mDecoder.decodeRegion(new Rect(0, 0, getWidth(), getHeight()), options);
+        } finally {
+            finishDecoding();
+        }
+    }
+
+    /**
+     * Release decoder memory once decodes in flight finish, source cannot be used afterwards
+     */
+    public synchronized void recycle() {
+        if (mRecycled)
+            return;
+        mRecycled = true;
+        if (mDecoding == 0)
+            mDecoder.recycle();
+    }
+
+    /**
+     * Get whether source was recycled
+     * @return true if recycled
+     */
+    public synchronized boolean isRecycled() {
+        return mRecycled;
+    }
+
+    private synchronized boolean startDecoding() {
+        if (mRecycled)
+            return false;
+        mDecoding++;
+        return true;
+    }
+
+    private synchronized void finishDecoding() {
+        if (--mDecoding == 0 && mRecycled)
+            mDecoder.recycle(); // recycled while decoding
+    }
+}